@@ -475,6 +475,10 @@ public final class FormEditingUtil
 
 	public static IComponent findComponentWithBinding(IComponent component, final String binding, @Nullable final IComponent exceptComponent)
 	{
+		if(component instanceof RadRootContainer)
+		{
+			return ((RadRootContainer) component).findComponentWithBinding(binding, exceptComponent);
+		}
 		// Check that binding is unique
 		final Ref<IComponent> boundComponent = new Ref<IComponent>();
 		iterate(component, new ComponentVisitor()
@@ -691,7 +695,7 @@ public final class FormEditingUtil
 		while(true)
 		{
 			final String id = Integer.toString((int) (Math.random() * 1024 * 1024), 16);
-			if(findComponent(rootContainer, id) == null)
+			if(rootContainer.findComponent(id) == null)
 			{
 				return id;
 			}
@@ -973,6 +977,10 @@ public final class FormEditingUtil
 	@Nullable
 	public static IButtonGroup findGroupForComponent(final IRootContainer radRootContainer, @Nonnull final IComponent component)
 	{
+		if(radRootContainer instanceof RadRootContainer)
+		{
+			return ((RadRootContainer) radRootContainer).findGroupForComponent(component.getId());
+		}
 		for(IButtonGroup group : radRootContainer.getButtonGroups())
 		{
 			for(String id : group.getComponentIds())
@@ -1087,6 +1095,10 @@ public final class FormEditingUtil
 	@Nullable
 	public static IComponent findComponent(@Nonnull final IComponent component, @Nonnull final String id)
 	{
+		if(component instanceof RadRootContainer)
+		{
+			return ((RadRootContainer) component).findComponent(id);
+		}
 		if(id.equals(component.getId()))
 		{
 			return component;
@@ -0,0 +1,200 @@
+package com.intellij.uiDesigner.impl;
+
+import com.intellij.uiDesigner.compiler.Utils;
+import com.intellij.uiDesigner.lw.LwRootContainer;
+import consulo.annotation.access.RequiredReadAction;
+import consulo.annotation.component.ComponentScope;
+import consulo.annotation.component.ServiceAPI;
+import consulo.annotation.component.ServiceImpl;
+import consulo.document.Document;
+import consulo.document.FileDocumentManager;
+import consulo.ide.ServiceManager;
+import consulo.language.psi.util.PsiModificationTracker;
+import consulo.module.Module;
+import consulo.project.Project;
+import consulo.virtualFileSystem.VirtualFile;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the lightweight model of forms, so inspections, nested form loading and source generation do not parse the same text
+ * again and again. A model is reused while the form text is unchanged, and, when it was built with component properties
+ * of a module, while PSI is unchanged too. Models are softly referenced and may be collected under memory pressure.
+ * <p>
+ * The cache may be used from several threads, e.g. by nested form loaders of parallel compilation. Concurrent requests for
+ * the same form wait for a single parse instead of parsing it each.
+ * <p>
+ * Returned models are shared and must not be modified. Callers which modify the model, e.g. by attaching errors to components,
+ * parse their own copy with {@link #parseCopy(VirtualFile, Module)}.
+ */
+@Singleton
+@ServiceAPI(ComponentScope.PROJECT)
+@ServiceImpl
+public final class FormModelCache
+{
+	private static final int MAX_ENTRIES_BEFORE_CLEANUP = 1000;
+	private static final int LOCK_COUNT = 32;
+
+	public static FormModelCache getInstance(final Project project)
+	{
+		return ServiceManager.getService(project, FormModelCache.class);
+	}
+
+	private final Project myProject;
+	private final Map<EntryKey, Entry> myEntries = new ConcurrentHashMap<>();
+	private final Object[] myLocks = new Object[LOCK_COUNT];
+
+	@Inject
+	public FormModelCache(final Project project)
+	{
+		myProject = project;
+		for(int i = 0; i < LOCK_COUNT; i++)
+		{
+			myLocks[i] = new Object();
+		}
+	}
+
+	/**
+	 * @param module module whose classes provide component properties (see {@link PsiPropertiesProvider}),
+	 *               or null if component properties are not needed
+	 * @throws Exception the same as {@link Utils#getRootContainer(String, com.intellij.uiDesigner.lw.PropertiesProvider)}
+	 */
+	@Nonnull
+	@RequiredReadAction
+	public LwRootContainer getRootContainer(@Nonnull final VirtualFile formFile, @Nullable final Module module) throws Exception
+	{
+		// unsaved changes live only in the document, so prefer it when it is loaded
+		return getRootContainer(formFile, FileDocumentManager.getInstance().getCachedDocument(formFile), module);
+	}
+
+	/**
+	 * Same as {@link #getRootContainer(VirtualFile, Module)}, but always reads the saved file content and ignores unsaved changes
+	 * of the document, as the compiler and nested form loading always did.
+	 */
+	@Nonnull
+	@RequiredReadAction
+	public LwRootContainer getSavedRootContainer(@Nonnull final VirtualFile formFile, @Nullable final Module module) throws Exception
+	{
+		return getRootContainer(formFile, null, module);
+	}
+
+	@Nonnull
+	private LwRootContainer getRootContainer(@Nonnull final VirtualFile formFile, @Nullable final Document document, @Nullable final Module module)
+			throws Exception
+	{
+		final long stamp = document != null ? document.getModificationStamp() : formFile.getModificationStamp();
+		final long psiStamp = module != null ? PsiModificationTracker.getInstance(myProject).getModificationCount() : 0L;
+
+		final EntryKey key = new EntryKey(formFile, module);
+		LwRootContainer container = getCached(key, document != null, stamp, psiStamp);
+		if(container != null)
+		{
+			return container;
+		}
+		synchronized(myLocks[Math.floorMod(key.hashCode(), LOCK_COUNT)])
+		{
+			// another thread may have parsed the form while this one waited
+			container = getCached(key, document != null, stamp, psiStamp);
+			if(container == null)
+			{
+				container = parse(formFile, document, module);
+				if(myEntries.size() >= MAX_ENTRIES_BEFORE_CLEANUP)
+				{
+					myEntries.values().removeIf(e -> e.myContainer.get() == null);
+				}
+				myEntries.put(key, new Entry(document != null, stamp, psiStamp, container));
+			}
+			return container;
+		}
+	}
+
+	/**
+	 * Parses the form from scratch, bypassing the cache, so the caller may modify the returned model.
+	 *
+	 * @see #getRootContainer(VirtualFile, Module)
+	 */
+	@Nonnull
+	@RequiredReadAction
+	public static LwRootContainer parseCopy(@Nonnull final VirtualFile formFile, @Nullable final Module module) throws Exception
+	{
+		return parse(formFile, FileDocumentManager.getInstance().getCachedDocument(formFile), module);
+	}
+
+	@Nullable
+	private LwRootContainer getCached(@Nonnull EntryKey key, boolean fromDocument, long stamp, long psiStamp)
+	{
+		final Entry entry = myEntries.get(key);
+		if(entry != null && entry.myFromDocument == fromDocument && entry.myStamp == stamp && entry.myPsiStamp == psiStamp)
+		{
+			return entry.myContainer.get();
+		}
+		return null;
+	}
+
+	@Nonnull
+	private static LwRootContainer parse(@Nonnull VirtualFile formFile, @Nullable Document document, @Nullable Module module) throws Exception
+	{
+		final PsiPropertiesProvider propertiesProvider = module != null ? new PsiPropertiesProvider(module) : null;
+		if(document != null)
+		{
+			return Utils.getRootContainer(document.getText(), propertiesProvider);
+		}
+		try (InputStream stream = formFile.getInputStream())
+		{
+			return Utils.getRootContainer(stream, propertiesProvider);
+		}
+	}
+
+	private static final class EntryKey
+	{
+		private final VirtualFile myFile;
+		private final Module myModule;
+
+		private EntryKey(@Nonnull VirtualFile file, @Nullable Module module)
+		{
+			myFile = file;
+			myModule = module;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if(!(o instanceof EntryKey))
+			{
+				return false;
+			}
+			final EntryKey key = (EntryKey) o;
+			return myFile.equals(key.myFile) && Objects.equals(myModule, key.myModule);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 31 * myFile.hashCode() + Objects.hashCode(myModule);
+		}
+	}
+
+	private static final class Entry
+	{
+		private final boolean myFromDocument;
+		private final long myStamp;
+		private final long myPsiStamp;
+		private final SoftReference<LwRootContainer> myContainer;
+
+		private Entry(boolean fromDocument, long stamp, long psiStamp, @Nonnull LwRootContainer container)
+		{
+			myFromDocument = fromDocument;
+			myStamp = stamp;
+			myPsiStamp = psiStamp;
+			myContainer = new SoftReference<>(container);
+		}
+	}
+}
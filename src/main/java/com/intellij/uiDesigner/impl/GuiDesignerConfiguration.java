@@ -60,6 +60,12 @@ public final class GuiDesignerConfiguration implements PersistentStateComponent<
 
 	public boolean USE_JB_SCALING = false;
 
+	/**
+	 * Number of worker threads used by the form compilers (instrumentation of different modules, preparation of generated sources):
+	 * 1 keeps compilation sequential, 0 or less means one thread per available processor
+	 */
+	public int INSTRUMENTATION_THREADS = 1;
+
 	@Override
 	public GuiDesignerConfiguration getState()
 	{
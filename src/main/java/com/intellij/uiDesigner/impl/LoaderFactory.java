@@ -87,7 +87,10 @@ public final class LoaderFactory
 			public void dispose()
 			{
 				myConnection.disconnect();
-				myModule2ClassLoader.clear();
+				synchronized(LoaderFactory.this)
+				{
+					myModule2ClassLoader.clear();
+				}
 			}
 		});
 	}
@@ -104,7 +107,7 @@ public final class LoaderFactory
 		return getLoader(module);
 	}
 
-	public ClassLoader getLoader(final Module module)
+	public synchronized ClassLoader getLoader(final Module module)
 	{
 		final ClassLoader cachedLoader = myModule2ClassLoader.get(module);
 		if(cachedLoader != null)
@@ -122,7 +125,7 @@ public final class LoaderFactory
 	}
 
 	@Nonnull
-	public ClassLoader getProjectClassLoader()
+	public synchronized ClassLoader getProjectClassLoader()
 	{
 		if(myProjectClassLoader == null)
 		{
@@ -196,8 +199,11 @@ public final class LoaderFactory
 				}
 			}
 		}
-		myModule2ClassLoader.clear();
-		myProjectClassLoader = null;
+		synchronized(this)
+		{
+			myModule2ClassLoader.clear();
+			myProjectClassLoader = null;
+		}
 	}
 
 	private static class DesignTimeClassLoader extends UrlClassLoader
@@ -0,0 +1,162 @@
+package com.intellij.uiDesigner.impl;
+
+import com.intellij.uiDesigner.compiler.RecursiveFormNestingException;
+import com.intellij.uiDesigner.compiler.Utils;
+import com.intellij.uiDesigner.impl.make.PsiNestedFormLoader;
+import com.intellij.uiDesigner.lw.CompiledClassPropertiesProvider;
+import com.intellij.uiDesigner.lw.LwComponent;
+import com.intellij.uiDesigner.lw.LwContainer;
+import com.intellij.uiDesigner.lw.LwNestedForm;
+import com.intellij.uiDesigner.lw.LwRootContainer;
+import consulo.application.ReadAction;
+import consulo.document.Document;
+import consulo.document.FileDocumentManager;
+import consulo.ide.impl.idea.openapi.module.ResourceFileUtil;
+import consulo.logging.Logger;
+import consulo.module.Module;
+import consulo.virtualFileSystem.VirtualFile;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lightweight model of a form along with everything {@link XmlReader} needs that does not touch Swing: the text is parsed,
+ * component properties are introspected, component classes are loaded and nested forms are prepared the same way. Preparing
+ * takes most of the time of opening a form and may run in a background thread, so the event dispatch thread only instantiates
+ * and attaches the components.
+ */
+public final class PreparedFormModel
+{
+	private static final Logger LOG = Logger.getInstance(PreparedFormModel.class);
+
+	private final LwRootContainer myRootContainer;
+	private final ClassLoader myClassLoader;
+	private final Map<String, PreparedFormModel> myNestedForms = new HashMap<>();
+	private final Set<String> myRecursiveNestedForms = new HashSet<>();
+
+	private PreparedFormModel(@Nonnull LwRootContainer rootContainer, @Nonnull ClassLoader classLoader)
+	{
+		myRootContainer = rootContainer;
+		myClassLoader = classLoader;
+	}
+
+	/**
+	 * Takes read actions only for short lookups, so write actions are not blocked while it runs in a background thread.
+	 *
+	 * @param module module whose dependencies contain the nested forms
+	 * @param text   text of the form
+	 * @throws Exception the same as {@link Utils#getRootContainer(String, com.intellij.uiDesigner.lw.PropertiesProvider)}
+	 */
+	@Nonnull
+	public static PreparedFormModel prepare(@Nonnull final Module module, @Nonnull final VirtualFile formFile, @Nonnull final String text) throws Exception
+	{
+		final ClassLoader classLoader = ReadAction.compute(() -> LoaderFactory.getInstance(module.getProject()).getLoader(formFile));
+		final PreparedFormModel model = new PreparedFormModel(Utils.getRootContainer(text, new CompiledClassPropertiesProvider(classLoader)), classLoader);
+		model.prepareComponent(module, model.myRootContainer);
+		return model;
+	}
+
+	private void prepareComponent(@Nonnull Module module, @Nonnull LwComponent component)
+	{
+		if(component instanceof LwNestedForm)
+		{
+			prepareNestedForm(module, ((LwNestedForm) component).getFormFileName());
+		}
+		else if(component.getErrorComponentProperties() == null)
+		{
+			try
+			{
+				// classes are initialized later, along with the components which may touch Swing in static initializers
+				Class.forName(component.getComponentClassName(), false, myClassLoader);
+			}
+			catch(ClassNotFoundException | LinkageError e)
+			{
+				// reported when the component is created
+			}
+		}
+
+		if(component instanceof LwContainer)
+		{
+			final LwContainer container = (LwContainer) component;
+			for(int i = 0; i < container.getComponentCount(); i++)
+			{
+				prepareComponent(module, (LwComponent) container.getComponent(i));
+			}
+		}
+	}
+
+	private void prepareNestedForm(@Nonnull final Module module, @Nonnull final String formFileName)
+	{
+		if(myNestedForms.containsKey(formFileName) || myRecursiveNestedForms.contains(formFileName))
+		{
+			return;
+		}
+		try
+		{
+			final boolean recursive = ReadAction.compute(() ->
+			{
+				try
+				{
+					Utils.validateNestedFormLoop(formFileName, new PsiNestedFormLoader(module));
+					return false;
+				}
+				catch(RecursiveFormNestingException e)
+				{
+					return true;
+				}
+			});
+			if(recursive)
+			{
+				myRecursiveNestedForms.add(formFileName);
+				return;
+			}
+
+			final VirtualFile[] formFile = new VirtualFile[1];
+			final String text = ReadAction.compute(() ->
+			{
+				formFile[0] = ResourceFileUtil.findResourceFileInDependents(module, formFileName);
+				final Document document = formFile[0] != null ? FileDocumentManager.getInstance().getDocument(formFile[0]) : null;
+				return document != null ? document.getText() : null;
+			});
+			if(text != null)
+			{
+				myNestedForms.put(formFileName, prepare(module, formFile[0], text));
+			}
+		}
+		catch(Exception e)
+		{
+			// the nested form is loaded again when its component is created, which reports the problem
+			LOG.debug("Cannot prepare nested form " + formFileName, e);
+		}
+	}
+
+	@Nonnull
+	public LwRootContainer getRootContainer()
+	{
+		return myRootContainer;
+	}
+
+	@Nonnull
+	public ClassLoader getClassLoader()
+	{
+		return myClassLoader;
+	}
+
+	/**
+	 * @return prepared model of the nested form, or null if it could not be prepared
+	 */
+	@Nullable
+	public PreparedFormModel getNestedForm(@Nonnull String formFileName)
+	{
+		return myNestedForms.get(formFileName);
+	}
+
+	public boolean isRecursiveNestedForm(@Nonnull String formFileName)
+	{
+		return myRecursiveNestedForms.contains(formFileName);
+	}
+}
@@ -29,9 +29,11 @@ import consulo.ui.ex.JBColor;
 import consulo.ui.ex.awt.UIUtil;
 
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import javax.swing.*;
 import java.awt.*;
 import java.text.MessageFormat;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -55,11 +57,47 @@ public final class XmlReader
 		return (RadRootContainer) createComponent(module, lwRootContainer, loader, stringDescriptorLocale);
 	}
 
+	/**
+	 * Creates components of a model prepared in advance, including the components of its nested forms.
+	 */
+	@Nonnull
+	public static RadRootContainer createRoot(final ModuleProvider module, final PreparedFormModel model, final Locale stringDescriptorLocale)
+			throws Exception
+	{
+		return (RadRootContainer) createComponent(module, model.getRootContainer(), model.getClassLoader(), stringDescriptorLocale,
+				Collections.<String, RadComponent>emptyMap(), model);
+	}
+
 	@Nonnull
 	public static RadComponent createComponent(@Nonnull final ModuleProvider module,
 											   @Nonnull final LwComponent lwComponent,
 											   @Nonnull final ClassLoader loader,
 											   final Locale stringDescriptorLocale) throws Exception
+	{
+		return createComponent(module, lwComponent, loader, stringDescriptorLocale, Collections.<String, RadComponent>emptyMap());
+	}
+
+	/**
+	 * @param reusedComponents existing components by id, which are moved into the created tree instead of creating child components
+	 *                         with the same id. They must be equal to the corresponding lightweight components, including their children.
+	 */
+	@Nonnull
+	public static RadComponent createComponent(@Nonnull final ModuleProvider module,
+											   @Nonnull final LwComponent lwComponent,
+											   @Nonnull final ClassLoader loader,
+											   final Locale stringDescriptorLocale,
+											   @Nonnull final Map<String, RadComponent> reusedComponents) throws Exception
+	{
+		return createComponent(module, lwComponent, loader, stringDescriptorLocale, reusedComponents, null);
+	}
+
+	@Nonnull
+	private static RadComponent createComponent(@Nonnull final ModuleProvider module,
+												@Nonnull final LwComponent lwComponent,
+												@Nonnull final ClassLoader loader,
+												final Locale stringDescriptorLocale,
+												@Nonnull final Map<String, RadComponent> reusedComponents,
+												@Nullable final PreparedFormModel preparedModel) throws Exception
 	{
 		// Id
 		final String id = lwComponent.getId();
@@ -69,14 +107,18 @@ public final class XmlReader
 		if(lwComponent instanceof LwNestedForm)
 		{
 			LwNestedForm nestedForm = (LwNestedForm) lwComponent;
-			boolean recursiveNesting = false;
-			try
-			{
-				Utils.validateNestedFormLoop(nestedForm.getFormFileName(), new PsiNestedFormLoader(module.getModule()));
-			}
-			catch(RecursiveFormNestingException ex)
+			final PreparedFormModel preparedNestedForm = preparedModel != null ? preparedModel.getNestedForm(nestedForm.getFormFileName()) : null;
+			boolean recursiveNesting = preparedModel != null && preparedModel.isRecursiveNestedForm(nestedForm.getFormFileName());
+			if(!recursiveNesting && preparedNestedForm == null)
 			{
-				recursiveNesting = true;
+				try
+				{
+					Utils.validateNestedFormLoop(nestedForm.getFormFileName(), new PsiNestedFormLoader(module.getModule()));
+				}
+				catch(RecursiveFormNestingException ex)
+				{
+					recursiveNesting = true;
+				}
 			}
 			if(recursiveNesting)
 			{
@@ -88,7 +130,7 @@ public final class XmlReader
 			}
 			else
 			{
-				component = new RadNestedForm(module, nestedForm.getFormFileName(), id);
+				component = new RadNestedForm(module, nestedForm.getFormFileName(), id, preparedNestedForm);
 			}
 		}
 		else
@@ -273,7 +315,10 @@ public final class XmlReader
 			// add children
 			for(int i = 0; i < lwContainer.getComponentCount(); i++)
 			{
-				container.addComponent(createComponent(module, (LwComponent) lwContainer.getComponent(i), loader, stringDescriptorLocale));
+				final LwComponent lwChild = (LwComponent) lwContainer.getComponent(i);
+				final RadComponent reusedChild = reusedComponents.get(lwChild.getId());
+				container.addComponent(reusedChild != null ? reusedChild : createComponent(module, lwChild, loader, stringDescriptorLocale, reusedComponents,
+						preparedModel));
 			}
 		}
 
@@ -40,12 +40,26 @@ public final class XmlWriter{
   private final Stack<String> myElementNames;
   private final Stack<Boolean> myElementHasBody;
   @NonNls private final StringBuffer myBuffer;
+  private final int myBaseDepth;
 
   public XmlWriter(){
+    this(0);
+    myBuffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+  }
+
+  private XmlWriter(final int baseDepth){
     myElementNames = new Stack<String>();
     myElementHasBody = new Stack<Boolean>();
     myBuffer = new StringBuffer();
-    myBuffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+    myBaseDepth = baseDepth;
+  }
+
+  /**
+   * Creates a writer for a part of a form. The text has no XML declaration, and elements are indented the same as
+   * inside <code>depth</code> enclosing elements of the whole form.
+   */
+  public static XmlWriter createFragmentWriter(final int depth){
+    return new XmlWriter(depth);
   }
 
   public String getText(){
@@ -78,7 +92,7 @@ public final class XmlWriter{
       myElementHasBody.set(myElementHasBody.size()-1,Boolean.TRUE);
     }
 
-    writeSpaces(myElementNames.size()*INDENT);
+    writeSpaces((myBaseDepth + myElementNames.size())*INDENT);
     myBuffer.append("<").append(elementName);
 
     if (namespace != null) {
@@ -97,7 +111,7 @@ public final class XmlWriter{
     myElementHasBody.pop();
 
     if (hasBody) {
-      writeSpaces(myElementNames.size()*INDENT);
+      writeSpaces((myBaseDepth + myElementNames.size())*INDENT);
       myBuffer.append("</").append(elementName).append(">\n");
     } else {
       myBuffer.append("/>\n");
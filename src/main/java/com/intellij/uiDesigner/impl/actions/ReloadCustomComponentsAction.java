@@ -43,7 +43,8 @@ public class ReloadCustomComponentsAction extends AnAction {
     LoaderFactory.getInstance(project).clearClassLoaderCache();
     final FileEditor[] fileEditors = FileEditorManager.getInstance(project).getAllEditors();
     for(FileEditor editor: fileEditors) {
-      if (editor instanceof UIFormEditor) {
+      // forms with standard Swing components only look the same after reloading
+      if (editor instanceof UIFormEditor && haveCustomComponents(((UIFormEditor) editor).getEditor())) {
         ((UIFormEditor) editor).getEditor().readFromFile(true);
       }
     }
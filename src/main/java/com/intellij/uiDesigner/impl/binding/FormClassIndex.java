@@ -16,7 +16,6 @@
 package com.intellij.uiDesigner.impl.binding;
 
 import com.intellij.java.language.psi.PsiClass;
-import com.intellij.uiDesigner.compiler.Utils;
 import com.intellij.uiDesigner.impl.GuiFormFileType;
 import consulo.annotation.component.ExtensionImpl;
 import consulo.application.ReadAction;
@@ -86,7 +85,7 @@ public class FormClassIndex extends ScalarIndexExtension<String>
 	@Override
 	public int getVersion()
 	{
-		return 0;
+		return 1;
 	}
 
 	private static class MyDataIndexer implements DataIndexer<String, Void, FileContent>
@@ -95,15 +94,7 @@ public class FormClassIndex extends ScalarIndexExtension<String>
 		@Nonnull
 		public Map<String, Void> map(final FileContent inputData)
 		{
-			String className = null;
-			try
-			{
-				className = Utils.getBoundClassName(inputData.getContentAsText().toString());
-			}
-			catch(Exception e)
-			{
-				// ignore
-			}
+			final String className = FormRootTagReader.getBoundClassName(inputData.getContentAsText());
 			if(className != null)
 			{
 				return Collections.singletonMap(className, null);
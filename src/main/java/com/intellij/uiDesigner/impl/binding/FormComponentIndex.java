@@ -0,0 +1,214 @@
+package com.intellij.uiDesigner.impl.binding;
+
+import com.intellij.uiDesigner.core.UIFormXmlConstants;
+import com.intellij.uiDesigner.impl.GuiFormFileType;
+import consulo.annotation.component.ExtensionImpl;
+import consulo.application.ReadAction;
+import consulo.application.dumb.IndexNotReadyException;
+import consulo.index.io.DataIndexer;
+import consulo.index.io.EnumeratorStringDescriptor;
+import consulo.index.io.ID;
+import consulo.index.io.KeyDescriptor;
+import consulo.language.psi.PsiFile;
+import consulo.language.psi.PsiManager;
+import consulo.language.psi.scope.GlobalSearchScope;
+import consulo.language.psi.stub.FileBasedIndex;
+import consulo.language.psi.stub.FileContent;
+import consulo.language.psi.stub.ScalarIndexExtension;
+import consulo.module.content.DirectoryIndex;
+import consulo.project.Project;
+import consulo.virtualFileSystem.VirtualFile;
+import org.jetbrains.annotations.NonNls;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Maps classes of components and nested form files (as written in the <code>form-file</code> attribute) to the forms which use them.
+ * Component class names are stored with <code>'$'</code> replaced by <code>'.'</code>, as returned by {@link com.intellij.java.language.psi.PsiClass#getQualifiedName()}.
+ */
+@ExtensionImpl
+public class FormComponentIndex extends ScalarIndexExtension<String>
+{
+	@NonNls
+	public static final ID<String, Void> NAME = ID.create("FormComponentIndex");
+	private final EnumeratorStringDescriptor myKeyDescriptor = new EnumeratorStringDescriptor();
+	private final MyInputFilter myInputFilter = new MyInputFilter();
+	private final MyDataIndexer myDataIndexer = new MyDataIndexer();
+
+	@Override
+	@Nonnull
+	public ID<String, Void> getName()
+	{
+		return NAME;
+	}
+
+	@Override
+	@Nonnull
+	public DataIndexer<String, Void, FileContent> getIndexer()
+	{
+		return myDataIndexer;
+	}
+
+	@Override
+	public KeyDescriptor<String> getKeyDescriptor()
+	{
+		return myKeyDescriptor;
+	}
+
+	@Override
+	public FileBasedIndex.InputFilter getInputFilter()
+	{
+		return myInputFilter;
+	}
+
+	@Override
+	public boolean dependsOnFileContent()
+	{
+		return true;
+	}
+
+	@Override
+	public int getVersion()
+	{
+		return 0;
+	}
+
+	private static class MyDataIndexer implements DataIndexer<String, Void, FileContent>
+	{
+		@Override
+		@Nonnull
+		public Map<String, Void> map(final FileContent inputData)
+		{
+			final Map<String, Void> result = new HashMap<String, Void>();
+			FormTagScanner.scan(inputData.getContentAsText(), tag ->
+			{
+				if(tag.getParent() != null)
+				{
+					final String className = tag.getAttributeValue(UIFormXmlConstants.ATTRIBUTE_CLASS);
+					if(className != null && !className.isEmpty())
+					{
+						result.put(className.replace('$', '.'), null);
+					}
+				}
+				final String formFile = tag.getAttributeValue(UIFormXmlConstants.ATTRIBUTE_FORM_FILE);
+				if(formFile != null && !formFile.isEmpty())
+				{
+					result.put(formFile, null);
+				}
+				return true;
+			});
+			return result;
+		}
+	}
+
+	private static class MyInputFilter implements FileBasedIndex.InputFilter
+	{
+		@Override
+		public boolean acceptInput(Project project, final VirtualFile file)
+		{
+			return file.getFileType() == GuiFormFileType.INSTANCE;
+		}
+	}
+
+	/**
+	 * @return forms containing components of the class with the given qualified name
+	 */
+	public static List<PsiFile> findFormsUsingComponentClass(final Project project, final String className, final GlobalSearchScope scope)
+	{
+		return findForms(project, className, scope);
+	}
+
+	/**
+	 * @param formFileName path of the nested form relative to its source root, e.g. <code>com/example/Panel.form</code>
+	 * @return forms which embed the given form
+	 */
+	public static List<PsiFile> findFormsUsingNestedForm(final Project project, final String formFileName, final GlobalSearchScope scope)
+	{
+		return findForms(project, formFileName, scope);
+	}
+
+	/**
+	 * @return valid forms which embed the given form directly, or null if indexes are not ready
+	 */
+	@Nullable
+	public static List<VirtualFile> findFormsEmbedding(final Project project, final VirtualFile formFile, final GlobalSearchScope scope)
+	{
+		return ReadAction.compute(() ->
+		{
+			final String formFileName = getNestedFormFileName(project, formFile);
+			if(formFileName == null)
+			{
+				return Collections.<VirtualFile>emptyList();
+			}
+			final List<VirtualFile> result = new ArrayList<VirtualFile>();
+			try
+			{
+				for(VirtualFile file : FileBasedIndex.getInstance().getContainingFiles(NAME, formFileName, GlobalSearchScope.projectScope(project).intersectWith(scope)))
+				{
+					if(file.isValid() && !file.equals(formFile))
+					{
+						result.add(file);
+					}
+				}
+			}
+			catch(IndexNotReadyException e)
+			{
+				return null;
+			}
+			return result;
+		});
+	}
+
+	/**
+	 * @return path of the form relative to its source root, as written in <code>form-file</code> attributes of forms embedding it,
+	 * or null if the form is not under a source root
+	 * @see com.intellij.uiDesigner.impl.FormEditingUtil#buildResourceName(PsiFile)
+	 */
+	@Nullable
+	public static String getNestedFormFileName(final Project project, final VirtualFile formFile)
+	{
+		final VirtualFile directory = formFile.getParent();
+		final String packageName = directory != null ? DirectoryIndex.getInstance(project).getPackageName(directory) : null;
+		if(packageName == null)
+		{
+			return null;
+		}
+		return packageName.isEmpty() ? formFile.getName() : packageName.replace('.', '/') + '/' + formFile.getName();
+	}
+
+	private static List<PsiFile> findForms(final Project project, final String key, final GlobalSearchScope scope)
+	{
+		return ReadAction.compute(() ->
+		{
+			final Collection<VirtualFile> files;
+			try
+			{
+				files = FileBasedIndex.getInstance().getContainingFiles(NAME, key, GlobalSearchScope.projectScope(project).intersectWith(scope));
+			}
+			catch(IndexNotReadyException e)
+			{
+				return Collections.emptyList();
+			}
+			if(files.isEmpty())
+			{
+				return Collections.emptyList();
+			}
+			List<PsiFile> result = new ArrayList<PsiFile>();
+			for(VirtualFile file : files)
+			{
+				if(!file.isValid())
+				{
+					continue;
+				}
+				PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
+				if(psiFile != null)
+				{
+					result.add(psiFile);
+				}
+			}
+			return result;
+		});
+	}
+}
@@ -0,0 +1,176 @@
+package com.intellij.uiDesigner.impl.binding;
+
+import com.intellij.uiDesigner.core.UIFormXmlConstants;
+import com.intellij.uiDesigner.impl.GuiFormFileType;
+import consulo.annotation.component.ExtensionImpl;
+import consulo.application.ReadAction;
+import consulo.application.dumb.IndexNotReadyException;
+import consulo.index.io.DataIndexer;
+import consulo.index.io.EnumeratorStringDescriptor;
+import consulo.index.io.ID;
+import consulo.index.io.KeyDescriptor;
+import consulo.index.io.data.DataExternalizer;
+import consulo.language.psi.scope.GlobalSearchScope;
+import consulo.language.psi.stub.FileBasedIndex;
+import consulo.language.psi.stub.FileBasedIndexExtension;
+import consulo.language.psi.stub.FileContent;
+import consulo.project.Project;
+import consulo.virtualFileSystem.VirtualFile;
+import org.jetbrains.annotations.NonNls;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Maps (bound class, field name) pairs to the offsets of the attribute values binding the field in forms bound to the class:
+ * <code>binding</code> of components and <code>name</code> of bound button groups.
+ * Class names are stored with <code>'$'</code> replaced by <code>'.'</code>, as returned by {@link com.intellij.java.language.psi.PsiClass#getQualifiedName()}.
+ */
+@ExtensionImpl
+public class FormFieldBindingIndex extends FileBasedIndexExtension<String, List<Integer>>
+{
+	@NonNls
+	public static final ID<String, List<Integer>> NAME = ID.create("FormFieldBindingIndex");
+	private static final char KEY_SEPARATOR = '#';
+
+	private final EnumeratorStringDescriptor myKeyDescriptor = new EnumeratorStringDescriptor();
+	private final MyInputFilter myInputFilter = new MyInputFilter();
+	private final MyDataIndexer myDataIndexer = new MyDataIndexer();
+
+	@Override
+	@Nonnull
+	public ID<String, List<Integer>> getName()
+	{
+		return NAME;
+	}
+
+	@Override
+	@Nonnull
+	public DataIndexer<String, List<Integer>, FileContent> getIndexer()
+	{
+		return myDataIndexer;
+	}
+
+	@Override
+	public KeyDescriptor<String> getKeyDescriptor()
+	{
+		return myKeyDescriptor;
+	}
+
+	@Override
+	public DataExternalizer<List<Integer>> getValueExternalizer()
+	{
+		return FormOffsetsExternalizer.INSTANCE;
+	}
+
+	@Override
+	public FileBasedIndex.InputFilter getInputFilter()
+	{
+		return myInputFilter;
+	}
+
+	@Override
+	public boolean dependsOnFileContent()
+	{
+		return true;
+	}
+
+	@Override
+	public int getVersion()
+	{
+		return 0;
+	}
+
+	@Nonnull
+	private static String getFieldKey(@Nonnull String className, @Nonnull String fieldName)
+	{
+		return className + KEY_SEPARATOR + fieldName;
+	}
+
+	private static class MyDataIndexer implements DataIndexer<String, List<Integer>, FileContent>
+	{
+		@Override
+		@Nonnull
+		public Map<String, List<Integer>> map(final FileContent inputData)
+		{
+			final Map<String, List<Integer>> result = new HashMap<String, List<Integer>>();
+			final String[] boundClass = new String[1];
+			FormTagScanner.scan(inputData.getContentAsText(), tag ->
+			{
+				if(tag.getParent() == null)
+				{
+					final String className = tag.getAttributeValue(UIFormXmlConstants.ATTRIBUTE_BIND_TO_CLASS);
+					// fields of an unbound form do not belong to any class
+					if(className == null)
+					{
+						return false;
+					}
+					boundClass[0] = className.replace('$', '.');
+					return true;
+				}
+				addField(result, boundClass[0], tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_BINDING));
+				if(Boolean.parseBoolean(tag.getAttributeValue(UIFormXmlConstants.ATTRIBUTE_BOUND)))
+				{
+					addField(result, boundClass[0], tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_NAME));
+				}
+				return true;
+			});
+			return result;
+		}
+
+		private static void addField(@Nonnull Map<String, List<Integer>> result, @Nonnull String className, @Nullable FormTagScanner.Attribute field)
+		{
+			if(field == null || field.getValue().isEmpty())
+			{
+				return;
+			}
+			final String key = getFieldKey(className, field.getValue());
+			List<Integer> offsets = result.get(key);
+			if(offsets == null)
+			{
+				offsets = new ArrayList<Integer>(1);
+				result.put(key, offsets);
+			}
+			offsets.add(field.getValueStart());
+		}
+	}
+
+	private static class MyInputFilter implements FileBasedIndex.InputFilter
+	{
+		@Override
+		public boolean acceptInput(Project project, final VirtualFile file)
+		{
+			return file.getFileType() == GuiFormFileType.INSTANCE;
+		}
+	}
+
+	/**
+	 * @return offsets of the bindings of the field in forms bound to its class, grouped by form, or null if indexes are not ready
+	 */
+	@Nullable
+	public static Map<VirtualFile, List<Integer>> findFieldBindings(final Project project, final String className, final String fieldName, final GlobalSearchScope scope)
+	{
+		final String key = getFieldKey(className, fieldName);
+		return ReadAction.compute(() ->
+		{
+			final Map<VirtualFile, List<Integer>> result = new LinkedHashMap<VirtualFile, List<Integer>>();
+			try
+			{
+				FileBasedIndex.getInstance().processValues(NAME, key, null, (file, offsets) ->
+				{
+					if(file.isValid())
+					{
+						result.put(file, offsets);
+					}
+					return true;
+				}, GlobalSearchScope.projectScope(project).intersectWith(scope));
+			}
+			catch(IndexNotReadyException e)
+			{
+				return null;
+			}
+			return result;
+		});
+	}
+}
@@ -0,0 +1,43 @@
+package com.intellij.uiDesigner.impl.binding;
+
+import consulo.index.io.data.DataExternalizer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores text offsets of attribute values for the form indexes.
+ */
+final class FormOffsetsExternalizer implements DataExternalizer<List<Integer>>
+{
+	static final FormOffsetsExternalizer INSTANCE = new FormOffsetsExternalizer();
+
+	private FormOffsetsExternalizer()
+	{
+	}
+
+	@Override
+	public void save(final DataOutput out, final List<Integer> value) throws IOException
+	{
+		out.writeInt(value.size());
+		for(Integer offset : value)
+		{
+			out.writeInt(offset);
+		}
+	}
+
+	@Override
+	public List<Integer> read(final DataInput in) throws IOException
+	{
+		final int size = in.readInt();
+		final List<Integer> offsets = new ArrayList<Integer>(size);
+		for(int i = 0; i < size; i++)
+		{
+			offsets.add(in.readInt());
+		}
+		return offsets;
+	}
+}
@@ -20,7 +20,6 @@ import com.intellij.java.language.psi.*;
 import com.intellij.java.language.psi.util.InheritanceUtil;
 import com.intellij.java.language.psi.util.PropertyUtil;
 import com.intellij.lang.properties.psi.PropertiesFile;
-import com.intellij.uiDesigner.compiler.Utils;
 import com.intellij.uiDesigner.core.UIFormXmlConstants;
 import com.intellij.uiDesigner.impl.GuiFormFileType;
 import consulo.application.ApplicationManager;
@@ -37,20 +36,19 @@ import consulo.language.util.ModuleUtilCore;
 import consulo.language.util.ProcessingContext;
 import consulo.module.Module;
 import consulo.project.Project;
+import consulo.project.content.scope.ProjectScopes;
 import consulo.util.dataholder.Key;
 import consulo.util.lang.Pair;
-import consulo.xml.language.XmlFileType;
-import consulo.xml.language.psi.XmlAttribute;
-import consulo.xml.language.psi.XmlAttributeValue;
-import consulo.xml.language.psi.XmlFile;
-import consulo.xml.language.psi.XmlTag;
+import consulo.virtualFileSystem.VirtualFile;
 import org.jetbrains.annotations.NonNls;
 
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * @author yole
@@ -93,6 +91,13 @@ public class FormReferenceProvider extends PsiReferenceProvider
   public static PsiReference getFormReference(PsiField field) {
     final PsiClass containingClass = field.getContainingClass();
     if (containingClass != null && containingClass.getQualifiedName() != null) {
+      final Project project = field.getProject();
+      final Map<VirtualFile, List<Integer>> bindings =
+        FormFieldBindingIndex.findFieldBindings(project, containingClass.getQualifiedName(), field.getName(), (GlobalSearchScope) ProjectScopes.getAllScope(project));
+      if (bindings != null) {
+        return findFormReference(project, bindings, field);
+      }
+
       final List<PsiFile> forms = FormClassIndex.findFormsBoundToClass(containingClass);
       for (PsiFile formFile : forms) {
         final PsiReference[] refs = formFile.getReferences();
@@ -106,6 +111,24 @@ public class FormReferenceProvider extends PsiReferenceProvider
     return null;
   }
 
+  @Nullable
+  private static PsiReference findFormReference(final Project project, final Map<VirtualFile, List<Integer>> bindings, final PsiField field) {
+    final PsiManager psiManager = PsiManager.getInstance(project);
+    for (Map.Entry<VirtualFile, List<Integer>> entry : bindings.entrySet()) {
+      final PsiFile formFile = psiManager.findFile(entry.getKey());
+      if (formFile == null) {
+        continue;
+      }
+      for (Integer offset : entry.getValue()) {
+        final PsiReference ref = formFile.findReferenceAt(offset);
+        if (ref != null && ref.isReferenceTo(field)) {
+          return ref;
+        }
+      }
+    }
+    return null;
+  }
+
   public static @Nullable
   PsiType getGUIComponentType(final PsiPlainTextFile file, String fieldName) {
     final Map<String, Pair<PsiType, TextRange>> fieldNameToTypeMap = getCachedData(file).myFieldNameToTypeMap;
@@ -125,82 +148,79 @@ public class FormReferenceProvider extends PsiReferenceProvider
   }
 
   private static void processReferences(final PsiPlainTextFile file, final PsiReferenceProcessor processor) {
-    final Project project = file.getProject();
-    final XmlTag rootTag = ApplicationManager.getApplication().runReadAction(new Computable<XmlTag>() {
-      public XmlTag compute() {
-        final XmlFile xmlFile = (XmlFile) PsiFileFactory.getInstance(project).createFileFromText("a.xml", XmlFileType.INSTANCE, file.getText());
-        return xmlFile.getRootTag();
+    final CharSequence text = ApplicationManager.getApplication().runReadAction(new Computable<CharSequence>() {
+      public CharSequence compute() {
+        return file.getViewProvider().getContents();
       }
     });
 
-    if (rootTag == null || !Utils.FORM_NAMESPACE.equals(rootTag.getNamespace())) {
-      return;
-    }
-
-    @NonNls final String name = rootTag.getName();
-    if (!"form".equals(name)){
-      return;
-    }
-
-    PsiReference classReference = null;
-
-    final XmlAttribute classToBind = rootTag.getAttribute("bind-to-class", null);
-    if (classToBind != null) {
-      // reference to class
-      final XmlAttributeValue valueElement = classToBind.getValueElement();
-      if (valueElement == null) {
-        return;
-      }
-      final String className = valueElement.getValue().replace('$','.');
-      final PsiReference[] referencesByString = new JavaClassReferenceProvider().getReferencesByString(className, file, valueElement.getTextRange().getStartOffset() + 1);
-      if(referencesByString.length < 1){
-        // There are no references there
-        return;
-      }
-      for (PsiReference aReferencesByString : referencesByString) {
-        processor.execute(aReferencesByString);
-      }
-      classReference = referencesByString[referencesByString.length - 1];
-    }
-
-    final PsiReference finalClassReference = classReference;
+    // tags are reported in document order, so the class reference of the root tag is known before any of its subtags
+    final PsiReference[] classReference = new PsiReference[1];
+    final Set<FormTagScanner.Tag> skippedTags = new HashSet<FormTagScanner.Tag>();
     ApplicationManager.getApplication().runReadAction(new Runnable() {
       public void run() {
-        processReferences(rootTag, finalClassReference, file, processor);
+        FormTagScanner.scan(text, new FormTagScanner.Visitor() {
+          public boolean visitTag(@Nonnull FormTagScanner.Tag tag) {
+            if (tag.getParent() == null) {
+              final FormTagScanner.Attribute classToBind = tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_BIND_TO_CLASS);
+              if (classToBind != null) {
+                // reference to class
+                final String className = classToBind.getValue().replace('$', '.');
+                final PsiReference[] referencesByString = new JavaClassReferenceProvider().getReferencesByString(className, file, classToBind.getValueStart());
+                if (referencesByString.length < 1) {
+                  // There are no references there
+                  return false;
+                }
+                for (PsiReference aReferencesByString : referencesByString) {
+                  processor.execute(aReferencesByString);
+                }
+                classReference[0] = referencesByString[referencesByString.length - 1];
+              }
+            }
+            else if (skippedTags.contains(tag.getParent())) {
+              skippedTags.add(tag);
+              return true;
+            }
+            if (!processReferences(tag, classReference[0], file, processor)) {
+              skippedTags.add(tag);
+            }
+            return true;
+          }
+        });
       }
     });
   }
 
-  private static TextRange getValueRange(final XmlAttribute classToBind) {
-    final XmlAttributeValue valueElement = classToBind.getValueElement();
-    final TextRange textRange = valueElement.getTextRange();
-    return new TextRange(textRange.getStartOffset() + 1, textRange.getEndOffset() - 1); // skip " "
+  private static TextRange getValueRange(final FormTagScanner.Attribute attribute) {
+    return new TextRange(attribute.getValueStart(), attribute.getValueEnd());
   }
 
-  private static void processReferences(final XmlTag tag,
-                                        final PsiReference classReference,
-                                        final PsiPlainTextFile file,
-                                        final PsiReferenceProcessor processor) {
-    final XmlAttribute clsAttribute = tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_CLASS, null);
+  /**
+   * @return false if the subtags of the tag must not be processed
+   */
+  private static boolean processReferences(final FormTagScanner.Tag tag,
+                                           final PsiReference classReference,
+                                           final PsiPlainTextFile file,
+                                           final PsiReferenceProcessor processor) {
+    final FormTagScanner.Attribute clsAttribute = tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_CLASS);
     final String classNameStr = clsAttribute != null? clsAttribute.getValue().replace('$','.') : null;
     // field
     {
-      final XmlAttribute bindingAttribute = tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_BINDING, null);
+      final FormTagScanner.Attribute bindingAttribute = tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_BINDING);
       if (bindingAttribute != null && classReference != null) {
-        final XmlAttribute customCreateAttribute = tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_CUSTOM_CREATE, null);
-        boolean customCreate = (customCreateAttribute != null && Boolean.parseBoolean(customCreateAttribute.getValue()));
+        boolean customCreate = Boolean.parseBoolean(tag.getAttributeValue(UIFormXmlConstants.ATTRIBUTE_CUSTOM_CREATE));
         final TextRange nameRange = clsAttribute != null ? getValueRange(clsAttribute) : null;
         processor.execute(new FieldFormReference(file, classReference, getValueRange(bindingAttribute), classNameStr, nameRange, customCreate));
       }
-      final XmlAttribute titleBundleAttribute = tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_TITLE_RESOURCE_BUNDLE, null);
-      final XmlAttribute titleKeyAttribute = tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_TITLE_KEY, null);
+      final FormTagScanner.Attribute titleBundleAttribute = tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_TITLE_RESOURCE_BUNDLE);
+      final FormTagScanner.Attribute titleKeyAttribute = tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_TITLE_KEY);
       if (titleBundleAttribute != null && titleKeyAttribute != null) {
         processResourceBundleFileReferences(file, processor, titleBundleAttribute);
         processor.execute(new ResourceBundleKeyReference(file, titleBundleAttribute.getValue(), getValueRange(titleKeyAttribute)));
       }
 
-      final XmlAttribute bundleAttribute = tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_RESOURCE_BUNDLE, null);
-      final XmlAttribute keyAttribute = tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_KEY, null);
+      final FormTagScanner.Attribute bundleAttribute = tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_RESOURCE_BUNDLE);
+      final FormTagScanner.Attribute keyAttribute = tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_KEY);
       if (bundleAttribute != null && keyAttribute != null) {
         processResourceBundleFileReferences(file, processor, bundleAttribute);
         processor.execute(new ResourceBundleKeyReference(file, bundleAttribute.getValue(), getValueRange(keyAttribute)));
@@ -214,10 +234,10 @@ public class FormReferenceProvider extends PsiReferenceProvider
     {
       if (clsAttribute != null) {
         final JavaClassReferenceProvider provider = new JavaClassReferenceProvider();
-        final PsiReference[] referencesByString = provider.getReferencesByString(classNameStr, file, clsAttribute.getValueElement().getTextRange().getStartOffset() + 1);
+        final PsiReference[] referencesByString = provider.getReferencesByString(classNameStr, file, clsAttribute.getValueStart());
         if(referencesByString.length < 1){
           // There are no references there
-          return;
+          return false;
         }
         for (PsiReference aReferencesByString : referencesByString) {
           processor.execute(aReferencesByString);
@@ -226,33 +246,29 @@ public class FormReferenceProvider extends PsiReferenceProvider
     }
 
     // property references
-    XmlTag parentTag = tag.getParentTag();
+    FormTagScanner.Tag parentTag = tag.getParent();
     if (parentTag != null && parentTag.getName().equals(UIFormXmlConstants.ELEMENT_PROPERTIES)) {
-      XmlTag componentTag = parentTag.getParentTag();
+      FormTagScanner.Tag componentTag = parentTag.getParent();
       if (componentTag != null) {
-        String className = componentTag.getAttributeValue(UIFormXmlConstants.ATTRIBUTE_CLASS, Utils.FORM_NAMESPACE);
+        String className = componentTag.getAttributeValue(UIFormXmlConstants.ATTRIBUTE_CLASS);
         if (className != null) {
           processPropertyReference(tag, processor, file, className.replace('$', '.'));
         }
       }
     }
-
-    final XmlTag[] subtags = tag.getSubTags();
-    for (XmlTag subtag : subtags) {
-      processReferences(subtag, classReference, file, processor);
-    }
+    return true;
   }
 
   private static void processResourceBundleFileReferences(final PsiPlainTextFile file,
                                                           final PsiReferenceProcessor processor,
-                                                          final XmlAttribute titleBundleAttribute) {
+                                                          final FormTagScanner.Attribute titleBundleAttribute) {
     processPackageReferences(file, processor, titleBundleAttribute);
     processor.execute(new ResourceBundleFileReference(file, getValueRange(titleBundleAttribute)));
   }
 
   private static void processPackageReferences(final PsiPlainTextFile file,
                                                final PsiReferenceProcessor processor,
-                                               final XmlAttribute attribute) {
+                                               final FormTagScanner.Attribute attribute) {
     final TextRange valueRange = getValueRange(attribute);
     final String value = attribute.getValue();
     int pos=-1;
@@ -265,26 +281,25 @@ public class FormReferenceProvider extends PsiReferenceProvider
     }
   }
 
-  private static void processNestedFormReference(final XmlTag tag, final PsiReferenceProcessor processor, final PsiPlainTextFile file) {
-    final XmlAttribute formFileAttribute = tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_FORM_FILE, null);
+  private static void processNestedFormReference(final FormTagScanner.Tag tag, final PsiReferenceProcessor processor, final PsiPlainTextFile file) {
+    final FormTagScanner.Attribute formFileAttribute = tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_FORM_FILE);
     if (formFileAttribute != null) {
       processPackageReferences(file, processor, formFileAttribute);
       processor.execute(new ResourceFileReference(file, getValueRange(formFileAttribute)));
     }
   }
 
-  private static void processButtonGroupReference(final XmlTag tag, final PsiReferenceProcessor processor, final PsiPlainTextFile file,
+  private static void processButtonGroupReference(final FormTagScanner.Tag tag, final PsiReferenceProcessor processor, final PsiPlainTextFile file,
                                                   final PsiReference classReference) {
-    final XmlAttribute boundAttribute = tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_BOUND, null);
-    final XmlAttribute nameAttribute = tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_NAME, null);
-    if (boundAttribute != null && Boolean.parseBoolean(boundAttribute.getValue()) && nameAttribute != null) {
+    final FormTagScanner.Attribute nameAttribute = tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_NAME);
+    if (Boolean.parseBoolean(tag.getAttributeValue(UIFormXmlConstants.ATTRIBUTE_BOUND)) && nameAttribute != null) {
       processor.execute(new FieldFormReference(file, classReference, getValueRange(nameAttribute), null, null, false));
     }
   }
 
-  private static void processPropertyReference(final XmlTag tag, final PsiReferenceProcessor processor, final PsiPlainTextFile file,
+  private static void processPropertyReference(final FormTagScanner.Tag tag, final PsiReferenceProcessor processor, final PsiPlainTextFile file,
                                                final String className) {
-    final XmlAttribute valueAttribute = tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_VALUE, null);
+    final FormTagScanner.Attribute valueAttribute = tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_VALUE);
     if (valueAttribute != null) {
       PsiReference reference = ApplicationManager.getApplication().runReadAction(new Computable<PsiReference>() {
         @Nullable
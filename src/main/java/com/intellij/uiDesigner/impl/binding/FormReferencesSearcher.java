@@ -9,9 +9,11 @@ import com.intellij.lang.properties.IProperty;
 import com.intellij.lang.properties.psi.PropertiesFile;
 import com.intellij.lang.properties.psi.Property;
 import com.intellij.uiDesigner.impl.GuiFormFileType;
+import consulo.annotation.access.RequiredReadAction;
 import consulo.annotation.component.ExtensionImpl;
 import consulo.application.ApplicationManager;
 import consulo.application.ReadAction;
+import consulo.application.progress.ProgressIndicator;
 import consulo.application.progress.ProgressManager;
 import consulo.application.util.function.CommonProcessors;
 import consulo.content.scope.SearchScope;
@@ -32,13 +34,25 @@ import consulo.virtualFileSystem.VirtualFile;
 import consulo.virtualFileSystem.fileType.FileTypeRegistry;
 import jakarta.annotation.Nonnull;
 
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Predicate;
-import java.util.function.Supplier;
 
 @ExtensionImpl
 public class FormReferencesSearcher implements ReferencesSearchQueryExecutor {
+    /**
+     * Forms are scanned on pooled threads only when there are at least this many of them.
+     */
+    private static final int PARALLEL_SCAN_THRESHOLD = 16;
+    private static final long WAIT_NANOS = 200_000;
+
+    private static final int FORM_PENDING = 0;
+    private static final int FORM_SCANNING = 1;
+    private static final int FORM_SCANNED = 2;
+
     @Override
     public boolean execute(@Nonnull final ReferencesSearch.SearchParameters p, @Nonnull final Predicate<? super PsiReference> consumer) {
         SearchScope userScope = p.getScopeDeterminedByUser();
@@ -103,6 +117,13 @@ public class FormReferencesSearcher implements ReferencesSearchQueryExecutor {
                 return false;
             }
         }
+        else if (refElement instanceof PsiFile && virtualFile.getFileType() == GuiFormFileType.INSTANCE) {
+            // forms embedding a nested form are in modules depending on it, not in its dependencies
+            GlobalSearchScope formScope = userScope instanceof GlobalSearchScope ? (GlobalSearchScope) userScope : GlobalSearchScope.projectScope(project);
+            if (!processNestedFormReferencesInUIForms(consumer, psiManager, (PsiFile) refElement, virtualFile, formScope, filterScope)) {
+                return false;
+            }
+        }
 
         return true;
     }
@@ -139,7 +160,24 @@ public class FormReferencesSearcher implements ReferencesSearchQueryExecutor {
 
     private static boolean processReferencesInUIForms(Predicate<? super PsiReference> processor, PsiManager psiManager, final PsiClass aClass, GlobalSearchScope scope, final LocalSearchScope filterScope) {
         String className = getQualifiedName(aClass);
-        return className == null || processReferencesInUIFormsInner(className, aClass, processor, scope, psiManager, filterScope);
+        if (className == null) {
+            return true;
+        }
+        // a class is used by the forms bound to it and by the forms containing it as a component
+        GlobalSearchScope formScope = GlobalSearchScope.projectScope(psiManager.getProject()).intersectWith(scope);
+        Set<PsiFile> files = new LinkedHashSet<>(FormClassIndex.findFormsBoundToClass(psiManager.getProject(), className, formScope));
+        files.addAll(FormComponentIndex.findFormsUsingComponentClass(psiManager.getProject(), className, formScope));
+        return processReferencesInFiles(new ArrayList<>(files), psiManager, className, aClass, filterScope, processor);
+    }
+
+    private static boolean processNestedFormReferencesInUIForms(Predicate<? super PsiReference> processor, PsiManager psiManager, final PsiFile formFile, final VirtualFile virtualFile, GlobalSearchScope scope, final LocalSearchScope filterScope) {
+        final Project project = psiManager.getProject();
+        String formFileName = ReadAction.compute(() -> FormComponentIndex.getNestedFormFileName(project, virtualFile));
+        if (formFileName == null) {
+            return true;
+        }
+        List<PsiFile> files = FormComponentIndex.findFormsUsingNestedForm(project, formFileName, scope);
+        return processReferencesInFiles(files, psiManager, formFileName, formFile, filterScope, processor);
     }
 
     public static String getQualifiedName(final PsiClass aClass) {
@@ -175,46 +213,92 @@ public class FormReferencesSearcher implements ReferencesSearchQueryExecutor {
     }
 
     private static boolean processReferences(final Predicate<? super PsiReference> processor, final PsiFile file, String name, final PsiElement element, final LocalSearchScope filterScope) {
-        CharSequence chars = ApplicationManager.getApplication().runReadAction((Supplier<CharSequence>) () -> {
-            if (filterScope != null) {
-                boolean isInScope = false;
-                for (PsiElement filterElement : filterScope.getScope()) {
-                    if (PsiTreeUtil.isAncestor(filterElement, file, false)) {
-                        isInScope = true;
-                        break;
-                    }
+        return deliver(processor, collectReferences(file, name, element, filterScope));
+    }
+
+    /**
+     * Finds all references to the element among the occurrences of its name in one read action per form.
+     */
+    @Nonnull
+    private static List<PsiReference> collectReferences(final PsiFile file, final String name, final PsiElement element, final LocalSearchScope filterScope) {
+        return ReadAction.compute(() -> findReferences(file, name, element, filterScope));
+    }
+
+    @Nonnull
+    @RequiredReadAction
+    private static List<PsiReference> findReferences(final PsiFile file, final String name, final PsiElement element, final LocalSearchScope filterScope) {
+        if (!file.isValid() || !isInFilterScope(file, filterScope)) {
+            return Collections.emptyList();
+        }
+        final CharSequence chars = file.getViewProvider().getContents();
+        final int offset = name.lastIndexOf('.');
+        List<PsiReference> result = null;
+        for (int index = CharArrayUtil.indexOf(chars, name, 0); index >= 0; index = CharArrayUtil.indexOf(chars, name, index + 1)) {
+            final PsiReference ref = file.findReferenceAt(index + offset + 1);
+            if (ref != null && ref.isReferenceTo(element)) {
+                if (result == null) {
+                    result = new ArrayList<>();
                 }
-                if (!isInScope) {
-                    return null;
+                result.add(ref);
+            }
+        }
+        return result == null ? Collections.<PsiReference>emptyList() : result;
+    }
+
+    private static boolean deliver(final Predicate<? super PsiReference> processor, final List<PsiReference> references) {
+        if (references.isEmpty()) {
+            return true;
+        }
+        return ReadAction.compute(() -> {
+            for (PsiReference reference : references) {
+                if (!processor.test(reference)) {
+                    return false;
                 }
             }
-            return file.getViewProvider().getContents();
+            return true;
         });
-        if (chars == null) {
+    }
+
+    @RequiredReadAction
+    private static boolean isInFilterScope(PsiFile file, LocalSearchScope filterScope) {
+        if (filterScope == null) {
             return true;
         }
-        int index = 0;
-        final int offset = name.lastIndexOf('.');
-        while (true) {
-            index = CharArrayUtil.indexOf(chars, name, index);
+        for (PsiElement filterElement : filterScope.getScope()) {
+            if (PsiTreeUtil.isAncestor(filterElement, file, false)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-            if (index < 0) {
-                break;
+    /**
+     * Checks the references at offsets found by {@link FormResourceBundleIndex}, without scanning the text of the forms.
+     */
+    private static boolean processIndexedReferences(Map<VirtualFile, List<Integer>> usages, PsiManager psiManager, PsiElement element, LocalSearchScope filterScope, Predicate<? super PsiReference> processor) {
+        for (Map.Entry<VirtualFile, List<Integer>> entry : usages.entrySet()) {
+            ProgressManager.checkCanceled();
+
+            final PsiFile file = ReadAction.compute(() -> {
+                PsiFile psiFile = psiManager.findFile(entry.getKey());
+                return psiFile != null && isInFilterScope(psiFile, filterScope) ? psiFile : null;
+            });
+            if (file == null) {
+                continue;
             }
-            final int finalIndex = index;
-            final Boolean searchDone = ApplicationManager.getApplication().runReadAction((Supplier<Boolean>) () -> {
-                final PsiReference ref = file.findReferenceAt(finalIndex + offset + 1);
-                if (ref != null && ref.isReferenceTo(element)) {
-                    return processor.test(ref);
+            for (final Integer offset : entry.getValue()) {
+                final boolean searchDone = ReadAction.compute(() -> {
+                    final PsiReference ref = file.findReferenceAt(offset);
+                    if (ref != null && ref.isReferenceTo(element)) {
+                        return processor.test(ref);
+                    }
+                    return true;
+                });
+                if (!searchDone) {
+                    return false;
                 }
-                return true;
-            });
-            if (!searchDone.booleanValue()) {
-                return false;
             }
-            index++;
         }
-
         return true;
     }
 
@@ -227,6 +311,17 @@ public class FormReferencesSearcher implements ReferencesSearchQueryExecutor {
             return true;
         }
 
+        final String bundleName = ReadAction.compute(() -> {
+            PropertiesFile propertiesFile = property.getPropertiesFile();
+            return propertiesFile != null ? FormReferenceProvider.getBundleName(propertiesFile) : null;
+        });
+        if (bundleName != null) {
+            final Map<VirtualFile, List<Integer>> usages = FormResourceBundleIndex.findPropertyUsages(project, bundleName, name, scope);
+            if (usages != null) {
+                return processIndexedReferences(usages, psiManager, property, filterScope, processor);
+            }
+        }
+
         psiManager.startBatchFilesProcessingMode();
 
         try {
@@ -261,27 +356,127 @@ public class FormReferencesSearcher implements ReferencesSearchQueryExecutor {
         final String baseName = ReadAction.compute(() -> propFile.getResourceBundle().getBaseName());
         PsiFile containingFile = ReadAction.compute(() -> propFile.getContainingFile());
 
+        final String bundleName = ReadAction.compute(() -> FormReferenceProvider.getBundleName(propFile));
+        if (bundleName != null) {
+            final Map<VirtualFile, List<Integer>> usages = FormResourceBundleIndex.findBundleUsages(project, bundleName, scope);
+            if (usages != null) {
+                return processIndexedReferences(usages, psiManager, containingFile, filterScope, processor);
+            }
+        }
+
         List<PsiFile> files = Arrays.asList(CacheManager.getInstance(project).getFilesWithWord(baseName, UsageSearchContext.IN_PLAIN_TEXT, scope, true));
         return processReferencesInFiles(files, psiManager, baseName, containingFile, filterScope, processor);
     }
 
     private static boolean processReferencesInFiles(List<PsiFile> files, PsiManager psiManager, String baseName, PsiElement element, LocalSearchScope filterScope, Predicate<? super PsiReference> processor) {
+        final List<PsiFile> forms = new ArrayList<>(files.size());
+        for (PsiFile file : files) {
+            if (file.getFileType() == GuiFormFileType.INSTANCE) {
+                forms.add(file);
+            }
+        }
+
         psiManager.startBatchFilesProcessingMode();
 
         try {
-            for (PsiFile file : files) {
-                ProgressManager.checkCanceled();
+            if (forms.size() < PARALLEL_SCAN_THRESHOLD) {
+                for (PsiFile file : forms) {
+                    ProgressManager.checkCanceled();
+
+                    if (!processReferences(processor, file, baseName, element, filterScope)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return processReferencesInParallel(forms, baseName, element, filterScope, processor);
+        }
+        finally {
+            psiManager.finishBatchFilesProcessingMode();
+        }
+    }
 
-                if (file.getFileType() != GuiFormFileType.INSTANCE) {
+    /**
+     * Scans forms on pooled threads, while references are passed to the consumer on the calling thread in the order of the forms,
+     * as soon as each form is scanned.
+     * <p>
+     * The search usually runs inside a read action, so workers never wait for a read action: they take one only if no write action
+     * is pending and give the form back otherwise. The calling thread scans every form which is not taken by a worker itself, so
+     * the search always completes, even when all workers give up because of a write action waiting for the caller.
+     */
+    private static boolean processReferencesInParallel(final List<PsiFile> forms, final String name, final PsiElement element, final LocalSearchScope filterScope, final Predicate<? super PsiReference> processor) {
+        final int formCount = forms.size();
+        final AtomicIntegerArray states = new AtomicIntegerArray(formCount);
+        final AtomicReferenceArray<List<PsiReference>> results = new AtomicReferenceArray<>(formCount);
+        final AtomicInteger nextForm = new AtomicInteger();
+        final ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+        final Runnable scanner = () -> {
+            for (int i = nextForm.getAndIncrement(); i < formCount; i = nextForm.getAndIncrement()) {
+                if (indicator != null && indicator.isCanceled()) {
+                    break;
+                }
+                if (!states.compareAndSet(i, FORM_PENDING, FORM_SCANNING)) {
                     continue;
                 }
-                if (!processReferences(processor, file, baseName, element, filterScope)) {
+                final PsiFile file = forms.get(i);
+                final List<List<PsiReference>> found = new ArrayList<>(1);
+                final boolean scanned = ProgressManager.getInstance().runInReadActionWithWriteActionPriority(
+                    () -> found.add(findReferences(file, name, element, filterScope)), indicator);
+                if (scanned && !found.isEmpty()) {
+                    results.set(i, found.get(0));
+                    states.set(i, FORM_SCANNED);
+                }
+                else {
+                    // a write action is pending, the calling thread scans the form once it gets there
+                    states.set(i, FORM_PENDING);
+                }
+            }
+        };
+
+        final int threadCount = Math.min(Runtime.getRuntime().availableProcessors() - 1, formCount - 1);
+        for (int i = 0; i < threadCount; i++) {
+            ApplicationManager.getApplication().executeOnPooledThread(scanner);
+        }
+        try {
+            for (int i = 0; i < formCount; i++) {
+                final List<PsiReference> references = awaitReferences(i, states, results, forms.get(i), name, element, filterScope);
+                if (!deliver(processor, references)) {
                     return false;
                 }
             }
+            return true;
         }
         finally {
-            psiManager.finishBatchFilesProcessingMode();
+            // workers skip all remaining forms
+            nextForm.set(formCount);
+        }
+    }
+
+    @Nonnull
+    private static List<PsiReference> awaitReferences(int index, AtomicIntegerArray states, AtomicReferenceArray<List<PsiReference>> results, PsiFile file, String name, PsiElement element, LocalSearchScope filterScope) {
+        while (true) {
+            ProgressManager.checkCanceled();
+            if (states.get(index) == FORM_SCANNED) {
+                final List<PsiReference> references = results.get(index);
+                // the references were found in another read action, a write action in between may have invalidated them
+                if (ReadAction.compute(() -> areValid(references))) {
+                    return references;
+                }
+                return collectReferences(file, name, element, filterScope);
+            }
+            if (states.compareAndSet(index, FORM_PENDING, FORM_SCANNING)) {
+                return collectReferences(file, name, element, filterScope);
+            }
+            LockSupport.parkNanos(WAIT_NANOS);
+        }
+    }
+
+    @RequiredReadAction
+    private static boolean areValid(List<PsiReference> references) {
+        for (PsiReference reference : references) {
+            if (!reference.getElement().isValid()) {
+                return false;
+            }
         }
         return true;
     }
@@ -0,0 +1,186 @@
+package com.intellij.uiDesigner.impl.binding;
+
+import com.intellij.uiDesigner.core.UIFormXmlConstants;
+import com.intellij.uiDesigner.impl.GuiFormFileType;
+import consulo.annotation.component.ExtensionImpl;
+import consulo.application.ReadAction;
+import consulo.application.dumb.IndexNotReadyException;
+import consulo.index.io.DataIndexer;
+import consulo.index.io.EnumeratorStringDescriptor;
+import consulo.index.io.ID;
+import consulo.index.io.KeyDescriptor;
+import consulo.index.io.data.DataExternalizer;
+import consulo.language.psi.scope.GlobalSearchScope;
+import consulo.language.psi.stub.FileBasedIndex;
+import consulo.language.psi.stub.FileBasedIndexExtension;
+import consulo.language.psi.stub.FileContent;
+import consulo.project.Project;
+import consulo.virtualFileSystem.VirtualFile;
+import org.jetbrains.annotations.NonNls;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Maps resource bundles and (bundle, key) pairs referenced by string properties of forms to the offsets where they appear.
+ * Bundle names are stored as written in forms, e.g. <code>com/example/Messages</code>, see {@link FormReferenceProvider#getBundleName}.
+ * <p>
+ * For a bundle the offset is that of its last path segment (where {@link ResourceBundleFileReference} is the innermost reference),
+ * for a key it is the start of the key value.
+ */
+@ExtensionImpl
+public class FormResourceBundleIndex extends FileBasedIndexExtension<String, List<Integer>>
+{
+	@NonNls
+	public static final ID<String, List<Integer>> NAME = ID.create("FormResourceBundleIndex");
+	private static final char KEY_SEPARATOR = '#';
+
+	private final EnumeratorStringDescriptor myKeyDescriptor = new EnumeratorStringDescriptor();
+	private final MyInputFilter myInputFilter = new MyInputFilter();
+	private final MyDataIndexer myDataIndexer = new MyDataIndexer();
+
+	@Override
+	@Nonnull
+	public ID<String, List<Integer>> getName()
+	{
+		return NAME;
+	}
+
+	@Override
+	@Nonnull
+	public DataIndexer<String, List<Integer>, FileContent> getIndexer()
+	{
+		return myDataIndexer;
+	}
+
+	@Override
+	public KeyDescriptor<String> getKeyDescriptor()
+	{
+		return myKeyDescriptor;
+	}
+
+	@Override
+	public DataExternalizer<List<Integer>> getValueExternalizer()
+	{
+		return FormOffsetsExternalizer.INSTANCE;
+	}
+
+	@Override
+	public FileBasedIndex.InputFilter getInputFilter()
+	{
+		return myInputFilter;
+	}
+
+	@Override
+	public boolean dependsOnFileContent()
+	{
+		return true;
+	}
+
+	@Override
+	public int getVersion()
+	{
+		return 0;
+	}
+
+	@Nonnull
+	private static String getPropertyKey(@Nonnull String bundleName, @Nonnull String key)
+	{
+		// '#' never appears in a bundle path, so the first one separates the property key
+		return bundleName + KEY_SEPARATOR + key;
+	}
+
+	private static class MyDataIndexer implements DataIndexer<String, List<Integer>, FileContent>
+	{
+		@Override
+		@Nonnull
+		public Map<String, List<Integer>> map(final FileContent inputData)
+		{
+			final Map<String, List<Integer>> result = new HashMap<String, List<Integer>>();
+			FormTagScanner.scan(inputData.getContentAsText(), tag ->
+			{
+				addBundleKey(result, tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_RESOURCE_BUNDLE), tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_KEY));
+				addBundleKey(result, tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_TITLE_RESOURCE_BUNDLE), tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_TITLE_KEY));
+				return true;
+			});
+			return result;
+		}
+
+		private static void addBundleKey(@Nonnull Map<String, List<Integer>> result,
+										 @Nullable FormTagScanner.Attribute bundle,
+										 @Nullable FormTagScanner.Attribute key)
+		{
+			if(bundle == null || key == null)
+			{
+				return;
+			}
+			final String bundleName = bundle.getValue();
+			addOffset(result, bundleName, bundle.getValueStart() + bundleName.lastIndexOf('/') + 1);
+			addOffset(result, getPropertyKey(bundleName, key.getValue()), key.getValueStart());
+		}
+
+		private static void addOffset(@Nonnull Map<String, List<Integer>> result, @Nonnull String key, int offset)
+		{
+			List<Integer> offsets = result.get(key);
+			if(offsets == null)
+			{
+				offsets = new ArrayList<Integer>(1);
+				result.put(key, offsets);
+			}
+			offsets.add(offset);
+		}
+	}
+
+	private static class MyInputFilter implements FileBasedIndex.InputFilter
+	{
+		@Override
+		public boolean acceptInput(Project project, final VirtualFile file)
+		{
+			return file.getFileType() == GuiFormFileType.INSTANCE;
+		}
+	}
+
+	/**
+	 * @return offsets of the property keys in the forms using the property, grouped by form, or null if indexes are not ready
+	 */
+	@Nullable
+	public static Map<VirtualFile, List<Integer>> findPropertyUsages(final Project project, final String bundleName, final String key, final GlobalSearchScope scope)
+	{
+		return findUsages(project, getPropertyKey(bundleName, key), scope);
+	}
+
+	/**
+	 * @return offsets of the bundle names in the forms using the bundle, grouped by form, or null if indexes are not ready
+	 */
+	@Nullable
+	public static Map<VirtualFile, List<Integer>> findBundleUsages(final Project project, final String bundleName, final GlobalSearchScope scope)
+	{
+		return findUsages(project, bundleName, scope);
+	}
+
+	@Nullable
+	private static Map<VirtualFile, List<Integer>> findUsages(final Project project, final String key, final GlobalSearchScope scope)
+	{
+		return ReadAction.compute(() ->
+		{
+			final Map<VirtualFile, List<Integer>> result = new LinkedHashMap<VirtualFile, List<Integer>>();
+			try
+			{
+				FileBasedIndex.getInstance().processValues(NAME, key, null, (file, offsets) ->
+				{
+					if(file.isValid())
+					{
+						result.put(file, offsets);
+					}
+					return true;
+				}, GlobalSearchScope.projectScope(project).intersectWith(scope));
+			}
+			catch(IndexNotReadyException e)
+			{
+				return null;
+			}
+			return result;
+		});
+	}
+}
@@ -0,0 +1,57 @@
+package com.intellij.uiDesigner.impl.binding;
+
+import com.intellij.uiDesigner.core.UIFormXmlConstants;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+/**
+ * Reads attributes of the root <code>&lt;form&gt;</code> tag straight from the form text. Scanning stops after the root start tag,
+ * so indexing does not need a copy of the text nor an XML tree.
+ */
+public final class FormRootTagReader
+{
+	private FormRootTagReader()
+	{
+	}
+
+	/**
+	 * @return name of the class the form is bound to, or null if the form is not bound or the text is not a form of this designer
+	 */
+	@Nullable
+	public static String getBoundClassName(@Nonnull CharSequence text)
+	{
+		return getRootAttribute(text, UIFormXmlConstants.ATTRIBUTE_BIND_TO_CLASS);
+	}
+
+	/**
+	 * @return value of an unprefixed attribute of the root tag, or null if there is no such attribute or the text is not a form
+	 * of this designer
+	 */
+	@Nullable
+	public static String getRootAttribute(@Nonnull CharSequence text, @Nonnull String attributeName)
+	{
+		final FormTagScanner.Tag rootTag = getRootTag(text);
+		return rootTag != null ? rootTag.getAttributeValue(attributeName) : null;
+	}
+
+	/**
+	 * The scanner reports the root tag only if it is a <code>&lt;form&gt;</code> tag in the namespace of this designer.
+	 *
+	 * @return the root <code>&lt;form&gt;</code> tag, or null if the text is not a form of this designer or cannot be scanned
+	 * up to the end of the root tag
+	 */
+	@Nullable
+	public static FormTagScanner.Tag getRootTag(@Nonnull CharSequence text)
+	{
+		final FormTagScanner.Tag[] rootTag = new FormTagScanner.Tag[1];
+		FormTagScanner.scan(text, tag ->
+		{
+			if(tag.getParent() == null && FormTagScanner.FORM_ELEMENT.equals(tag.getName()))
+			{
+				rootTag[0] = tag;
+			}
+			return false;
+		});
+		return rootTag[0];
+	}
+}
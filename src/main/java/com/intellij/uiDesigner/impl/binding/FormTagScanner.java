@@ -0,0 +1,435 @@
+package com.intellij.uiDesigner.impl.binding;
+
+import com.intellij.uiDesigner.compiler.Utils;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.jetbrains.annotations.NonNls;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Single pass scanner over the text of a form: reports start tags with their attributes and value offsets, without copying
+ * the text or building a tree. Used by indexes and reference extraction, which need a handful of attributes of every tag.
+ * <p>
+ * Only well-formed forms are expected; scanning stops at the first construct which is not understood.
+ */
+public final class FormTagScanner
+{
+	public interface Visitor
+	{
+		/**
+		 * @return false to stop scanning
+		 */
+		boolean visitTag(@Nonnull Tag tag);
+
+		/**
+		 * Called when the element started by the tag ends.
+		 *
+		 * @param endOffset offset right after the end tag, or after the start tag of an empty element
+		 */
+		default void visitEndTag(@Nonnull Tag tag, int endOffset)
+		{
+		}
+	}
+
+	public static final class Tag
+	{
+		private final String myName;
+		private final Tag myParent;
+		private final int myStartOffset;
+		private final List<Attribute> myAttributes;
+
+		private Tag(@Nonnull String name, @Nullable Tag parent, int startOffset, @Nonnull List<Attribute> attributes)
+		{
+			myName = name;
+			myParent = parent;
+			myStartOffset = startOffset;
+			myAttributes = attributes;
+		}
+
+		/**
+		 * @return local name of the tag, without namespace prefix
+		 */
+		@Nonnull
+		public String getName()
+		{
+			return myName;
+		}
+
+		@Nullable
+		public Tag getParent()
+		{
+			return myParent;
+		}
+
+		public int getStartOffset()
+		{
+			return myStartOffset;
+		}
+
+		@Nonnull
+		public List<Attribute> getAttributes()
+		{
+			return myAttributes;
+		}
+
+		@Nullable
+		public Attribute getAttribute(@Nonnull String name)
+		{
+			for(Attribute attribute : myAttributes)
+			{
+				if(attribute.myName.equals(name))
+				{
+					return attribute;
+				}
+			}
+			return null;
+		}
+
+		@Nullable
+		public String getAttributeValue(@Nonnull String name)
+		{
+			final Attribute attribute = getAttribute(name);
+			return attribute != null ? attribute.getValue() : null;
+		}
+	}
+
+	public static final class Attribute
+	{
+		private final String myName;
+		private final String myValue;
+		private final int myValueStart;
+		private final int myValueEnd;
+
+		private Attribute(@Nonnull String name, @Nonnull String value, int valueStart, int valueEnd)
+		{
+			myName = name;
+			myValue = value;
+			myValueStart = valueStart;
+			myValueEnd = valueEnd;
+		}
+
+		@Nonnull
+		public String getName()
+		{
+			return myName;
+		}
+
+		/**
+		 * @return value with entities resolved
+		 */
+		@Nonnull
+		public String getValue()
+		{
+			return myValue;
+		}
+
+		/**
+		 * @return offset of the value in the text, right after the opening quote
+		 */
+		public int getValueStart()
+		{
+			return myValueStart;
+		}
+
+		/**
+		 * @return offset of the closing quote of the value
+		 */
+		public int getValueEnd()
+		{
+			return myValueEnd;
+		}
+	}
+
+	@NonNls
+	static final String FORM_ELEMENT = "form";
+
+	private FormTagScanner()
+	{
+	}
+
+	/**
+	 * Reports every start tag of the form in document order, starting with the root <code>&lt;form&gt;</code> tag.
+	 *
+	 * @return false if the text is not a form of this designer, or the visitor stopped scanning
+	 */
+	public static boolean scan(@Nonnull CharSequence text, @Nonnull Visitor visitor)
+	{
+		final int length = text.length();
+		final ArrayDeque<Tag> openTags = new ArrayDeque<>();
+		boolean rootSeen = false;
+		int offset = 0;
+		while(true)
+		{
+			offset = indexOf(text, '<', offset, length);
+			if(offset < 0)
+			{
+				return rootSeen;
+			}
+			if(startsWith(text, offset, "<!--"))
+			{
+				offset = indexOf(text, "-->", offset + 4);
+			}
+			else if(startsWith(text, offset, "<![CDATA["))
+			{
+				offset = indexOf(text, "]]>", offset + 9);
+			}
+			else if(startsWith(text, offset, "<?"))
+			{
+				offset = indexOf(text, "?>", offset + 2);
+			}
+			else if(startsWith(text, offset, "<!"))
+			{
+				offset = indexOf(text, ">", offset + 2);
+			}
+			else if(startsWith(text, offset, "</"))
+			{
+				offset = indexOf(text, ">", offset + 2);
+				final Tag tag = openTags.pollFirst();
+				if(tag != null && offset >= 0)
+				{
+					visitor.visitEndTag(tag, offset);
+				}
+			}
+			else
+			{
+				final int tagStart = offset;
+				final int nameEnd = skipName(text, offset + 1);
+				final String qualifiedName = text.subSequence(offset + 1, nameEnd).toString();
+				final List<Attribute> attributes = new ArrayList<>();
+				offset = readAttributes(text, nameEnd, attributes);
+				if(offset < 0 || qualifiedName.isEmpty())
+				{
+					return false;
+				}
+				final boolean empty = text.charAt(offset) == '/';
+				offset = indexOf(text, ">", offset);
+
+				final int colon = qualifiedName.indexOf(':');
+				final String name = colon >= 0 ? qualifiedName.substring(colon + 1) : qualifiedName;
+				if(!rootSeen)
+				{
+					final String namespaceAttribute = colon >= 0 ? "xmlns:" + qualifiedName.substring(0, colon) : "xmlns";
+					if(!FORM_ELEMENT.equals(name) || !Utils.FORM_NAMESPACE.equals(findValue(attributes, namespaceAttribute)))
+					{
+						return false;
+					}
+					rootSeen = true;
+				}
+				final Tag tag = new Tag(name, openTags.peekFirst(), tagStart, attributes.isEmpty() ? Collections.<Attribute>emptyList() : attributes);
+				if(!visitor.visitTag(tag))
+				{
+					return false;
+				}
+				if(!empty)
+				{
+					openTags.addFirst(tag);
+				}
+				else if(offset >= 0)
+				{
+					visitor.visitEndTag(tag, offset);
+				}
+			}
+			if(offset < 0)
+			{
+				return rootSeen;
+			}
+		}
+	}
+
+	/**
+	 * @return offset of '>' or '/' which ends the start tag, or -1 if the tag is malformed
+	 */
+	private static int readAttributes(@Nonnull CharSequence text, int offset, @Nonnull List<Attribute> attributes)
+	{
+		final int length = text.length();
+		while(true)
+		{
+			offset = skipWhitespace(text, offset);
+			if(offset >= length)
+			{
+				return -1;
+			}
+			final char c = text.charAt(offset);
+			if(c == '>' || c == '/')
+			{
+				return offset;
+			}
+
+			final int nameEnd = skipName(text, offset);
+			if(nameEnd == offset)
+			{
+				return -1;
+			}
+			final String name = text.subSequence(offset, nameEnd).toString();
+			offset = skipWhitespace(text, nameEnd);
+			if(offset >= length || text.charAt(offset) != '=')
+			{
+				return -1;
+			}
+			offset = skipWhitespace(text, offset + 1);
+			if(offset >= length)
+			{
+				return -1;
+			}
+			final char quote = text.charAt(offset);
+			if(quote != '"' && quote != '\'')
+			{
+				return -1;
+			}
+			final int valueEnd = indexOf(text, quote, offset + 1, length);
+			if(valueEnd < 0)
+			{
+				return -1;
+			}
+			attributes.add(new Attribute(name, unescape(text, offset + 1, valueEnd), offset + 1, valueEnd));
+			offset = valueEnd + 1;
+		}
+	}
+
+	@Nullable
+	private static String findValue(@Nonnull List<Attribute> attributes, @Nonnull String name)
+	{
+		for(Attribute attribute : attributes)
+		{
+			if(attribute.myName.equals(name))
+			{
+				return attribute.myValue;
+			}
+		}
+		return null;
+	}
+
+	private static int skipWhitespace(@Nonnull CharSequence text, int offset)
+	{
+		while(offset < text.length() && Character.isWhitespace(text.charAt(offset)))
+		{
+			offset++;
+		}
+		return offset;
+	}
+
+	private static int skipName(@Nonnull CharSequence text, int offset)
+	{
+		while(offset < text.length())
+		{
+			final char c = text.charAt(offset);
+			if(Character.isWhitespace(c) || c == '=' || c == '>' || c == '/' || c == '"' || c == '\'')
+			{
+				break;
+			}
+			offset++;
+		}
+		return offset;
+	}
+
+	private static boolean startsWith(@Nonnull CharSequence text, int offset, @Nonnull String prefix)
+	{
+		if(offset + prefix.length() > text.length())
+		{
+			return false;
+		}
+		for(int i = 0; i < prefix.length(); i++)
+		{
+			if(text.charAt(offset + i) != prefix.charAt(i))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int indexOf(@Nonnull CharSequence text, char c, int from, int to)
+	{
+		for(int i = from; i < to; i++)
+		{
+			if(text.charAt(i) == c)
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return offset right after the end of <code>terminator</code>, or -1 if it is not found
+	 */
+	private static int indexOf(@Nonnull CharSequence text, @Nonnull String terminator, int from)
+	{
+		for(int i = from; i + terminator.length() <= text.length(); i++)
+		{
+			if(startsWith(text, i, terminator))
+			{
+				return i + terminator.length();
+			}
+		}
+		return -1;
+	}
+
+	@Nonnull
+	private static String unescape(@Nonnull CharSequence text, int start, int end)
+	{
+		if(indexOf(text, '&', start, end) < 0)
+		{
+			return text.subSequence(start, end).toString();
+		}
+		final StringBuilder builder = new StringBuilder(end - start);
+		for(int i = start; i < end; i++)
+		{
+			final char c = text.charAt(i);
+			final int semicolon = c == '&' ? indexOf(text, ';', i + 1, end) : -1;
+			if(semicolon < 0)
+			{
+				builder.append(c);
+				continue;
+			}
+			final String entity = text.subSequence(i + 1, semicolon).toString();
+			switch(entity)
+			{
+				case "amp":
+					builder.append('&');
+					break;
+				case "lt":
+					builder.append('<');
+					break;
+				case "gt":
+					builder.append('>');
+					break;
+				case "quot":
+					builder.append('"');
+					break;
+				case "apos":
+					builder.append('\'');
+					break;
+				default:
+					if(!appendCharacterReference(builder, entity))
+					{
+						builder.append(text, i, semicolon + 1);
+					}
+			}
+			i = semicolon;
+		}
+		return builder.toString();
+	}
+
+	private static boolean appendCharacterReference(@Nonnull StringBuilder builder, @Nonnull String entity)
+	{
+		if(entity.length() < 2 || entity.charAt(0) != '#')
+		{
+			return false;
+		}
+		try
+		{
+			final boolean hex = entity.charAt(1) == 'x';
+			builder.appendCodePoint(Integer.parseInt(entity.substring(hex ? 2 : 1), hex ? 16 : 10));
+			return true;
+		}
+		catch(IllegalArgumentException e)
+		{
+			return false;
+		}
+	}
+}
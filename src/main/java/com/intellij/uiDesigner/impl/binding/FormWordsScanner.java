@@ -16,64 +16,89 @@
 
 package com.intellij.uiDesigner.impl.binding;
 
-import consulo.language.cacheBuilder.WordOccurrence;
+import com.intellij.uiDesigner.core.Spacer;
+import com.intellij.uiDesigner.core.UIFormXmlConstants;
 import consulo.application.util.function.Processor;
-import com.intellij.uiDesigner.lw.LwRootContainer;
-import com.intellij.uiDesigner.lw.IComponent;
-import com.intellij.uiDesigner.compiler.Utils;
-import com.intellij.uiDesigner.compiler.AlienFormFileException;
-import com.intellij.uiDesigner.compiler.UnexpectedFormElementException;
-import com.intellij.uiDesigner.impl.FormEditingUtil;
 import consulo.language.cacheBuilder.SimpleWordsScanner;
-import consulo.logging.Logger;
-import org.jdom.input.JDOMParseException;
+import consulo.language.cacheBuilder.WordOccurrence;
+import org.jetbrains.annotations.NonNls;
+
+import javax.swing.*;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
+ * Adds the bound class, component classes and their packages and field bindings of a form to the plain words of its text.
+ * Attributes are read with {@link FormTagScanner}, the form model is not built.
+ *
  * @author yole
  */
 public class FormWordsScanner extends SimpleWordsScanner
 {
-  private static final Logger LOG = Logger.getInstance(FormWordsScanner.class);
+  @NonNls private static final String HSPACER_ELEMENT = "hspacer";
+  @NonNls private static final String VSPACER_ELEMENT = "vspacer";
+  @NonNls private static final String GRID_ELEMENT = "grid";
+  @NonNls private static final String XY_ELEMENT = "xy";
+
+  /**
+   * Classes of components whose tags may omit the <code>class</code> attribute, as assumed by the lightweight model
+   */
+  private static final Map<String, String> ourDefaultClassNames = new HashMap<String, String>();
+
+  static {
+    ourDefaultClassNames.put(GRID_ELEMENT, JPanel.class.getName());
+    ourDefaultClassNames.put(XY_ELEMENT, JPanel.class.getName());
+    ourDefaultClassNames.put(UIFormXmlConstants.ELEMENT_SCROLLPANE, JScrollPane.class.getName());
+    ourDefaultClassNames.put(UIFormXmlConstants.ELEMENT_TABBEDPANE, JTabbedPane.class.getName());
+    ourDefaultClassNames.put(UIFormXmlConstants.ELEMENT_SPLITPANE, JSplitPane.class.getName());
+    ourDefaultClassNames.put(UIFormXmlConstants.ELEMENT_TOOLBAR, JToolBar.class.getName());
+    // the designer shows a nested form in a panel
+    ourDefaultClassNames.put(UIFormXmlConstants.ELEMENT_NESTED_FORM, JPanel.class.getName());
+  }
 
   @Override
   public void processWords(CharSequence fileText, final Processor<WordOccurrence> processor) {
     super.processWords(fileText, processor);
 
-    try {
-      LwRootContainer container = Utils.getRootContainer(fileText.toString(), null/*no need component classes*/);
-      String className = container.getClassToBind();
-      if (className != null) {
-        processClassAndPackagesNames(className, processor);
-      }
+    FormTagScanner.scan(fileText, new FormTagScanner.Visitor() {
+      WordOccurrence occurence;
 
-      FormEditingUtil.iterate(container,
-                              new FormEditingUtil.ComponentVisitor() {
-                                WordOccurrence occurence;
-                                public boolean visit(IComponent iComponent) {
-                                  String componentClassName = iComponent.getComponentClassName();
-                                  processClassAndPackagesNames(componentClassName, processor);
-                                  final String binding = iComponent.getBinding();
-                                  if (binding != null) {
-                                    if (occurence == null) occurence = new WordOccurrence(binding, 0, binding.length(),WordOccurrence.Kind.FOREIGN_LANGUAGE);
-                                    else occurence.init(binding, 0, binding.length(),WordOccurrence.Kind.FOREIGN_LANGUAGE);
-                                    processor.process(occurence);
-                                  }
-                                  return true;
-                                }
-                              });
-    }
-    catch(AlienFormFileException ex) {
-      // ignore
-    }
-    catch(UnexpectedFormElementException ex) {
-      // ignore
-    }
-    catch(JDOMParseException ex) {
-      // ignore
-    }
-    catch (Exception e) {
-      LOG.error("Error indexing form file", e);
-    }
+      @Override
+      public boolean visitTag(FormTagScanner.Tag tag) {
+        if (tag.getParent() == null) {
+          final String className = tag.getAttributeValue(UIFormXmlConstants.ATTRIBUTE_BIND_TO_CLASS);
+          if (className != null) {
+            processClassAndPackagesNames(className, processor);
+          }
+          // the root container of the model is a panel
+          processClassAndPackagesNames(JPanel.class.getName(), processor);
+          return true;
+        }
+
+        final String tagName = tag.getName();
+        if (HSPACER_ELEMENT.equals(tagName) || VSPACER_ELEMENT.equals(tagName)) {
+          processClassAndPackagesNames(Spacer.class.getName(), processor);
+        }
+        else {
+          String componentClassName = tag.getAttributeValue(UIFormXmlConstants.ATTRIBUTE_CLASS);
+          // constraints reuse some of these tag names, only component tags have an id
+          if (componentClassName == null && tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_ID) != null) {
+            componentClassName = ourDefaultClassNames.get(tagName);
+          }
+          if (componentClassName != null) {
+            processClassAndPackagesNames(componentClassName, processor);
+          }
+        }
+
+        final String binding = tag.getAttributeValue(UIFormXmlConstants.ATTRIBUTE_BINDING);
+        if (binding != null) {
+          if (occurence == null) occurence = new WordOccurrence(binding, 0, binding.length(),WordOccurrence.Kind.FOREIGN_LANGUAGE);
+          else occurence.init(binding, 0, binding.length(),WordOccurrence.Kind.FOREIGN_LANGUAGE);
+          processor.process(occurence);
+        }
+        return true;
+      }
+    });
   }
 
   private static void processClassAndPackagesNames(String qName, final Processor<WordOccurrence> processor) {
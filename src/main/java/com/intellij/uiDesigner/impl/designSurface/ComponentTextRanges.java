@@ -0,0 +1,140 @@
+package com.intellij.uiDesigner.impl.designSurface;
+
+import com.intellij.uiDesigner.core.UIFormXmlConstants;
+import com.intellij.uiDesigner.impl.binding.FormTagScanner;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Ranges of component elements in the text of a form, by component id. Ranges are kept up to date while elements are replaced,
+ * so a series of edits of the same components does not scan the text again.
+ */
+final class ComponentTextRanges
+{
+	private final Map<String, Range> myRanges;
+
+	private ComponentTextRanges(@Nonnull Map<String, Range> ranges)
+	{
+		myRanges = ranges;
+	}
+
+	/**
+	 * @return null if the text is not a well-formed form or component ids are not unique
+	 */
+	@Nullable
+	static ComponentTextRanges create(@Nonnull CharSequence text)
+	{
+		final Map<String, Range> ranges = new HashMap<>();
+		final Map<FormTagScanner.Tag, Range> openRanges = new HashMap<>();
+		final boolean scanned = FormTagScanner.scan(text, new FormTagScanner.Visitor()
+		{
+			@Override
+			public boolean visitTag(@Nonnull FormTagScanner.Tag tag)
+			{
+				if(!FormComponentDiff.isComponentTag(tag))
+				{
+					return true;
+				}
+				int depth = 0;
+				for(FormTagScanner.Tag parent = tag.getParent(); parent != null; parent = parent.getParent())
+				{
+					depth++;
+				}
+				final Range range = new Range(tag.getStartOffset(), depth);
+				openRanges.put(tag, range);
+				return ranges.put(tag.getAttributeValue(UIFormXmlConstants.ATTRIBUTE_ID), range) == null;
+			}
+
+			@Override
+			public void visitEndTag(@Nonnull FormTagScanner.Tag tag, int endOffset)
+			{
+				final Range range = openRanges.remove(tag);
+				if(range != null)
+				{
+					range.myEnd = endOffset;
+				}
+			}
+		});
+		return scanned && openRanges.isEmpty() ? new ComponentTextRanges(ranges) : null;
+	}
+
+	@Nullable
+	Range get(@Nonnull String componentId)
+	{
+		return myRanges.get(componentId);
+	}
+
+	/**
+	 * Updates the ranges after the element of the range was replaced with text of the given length. Ranges of components
+	 * inside the replaced element are forgotten.
+	 */
+	void replaced(@Nonnull Range replacedRange, int newLength)
+	{
+		final int start = replacedRange.myStart;
+		final int end = replacedRange.myEnd;
+		final int delta = newLength - (end - start);
+		for(Iterator<Range> it = myRanges.values().iterator(); it.hasNext(); )
+		{
+			final Range range = it.next();
+			if(range == replacedRange)
+			{
+				range.myEnd += delta;
+			}
+			else if(range.myStart >= end)
+			{
+				range.myStart += delta;
+				range.myEnd += delta;
+			}
+			else if(range.myStart <= start && range.myEnd >= end)
+			{
+				range.myEnd += delta;
+			}
+			else if(range.myStart >= start)
+			{
+				it.remove();
+			}
+		}
+	}
+
+	static final class Range
+	{
+		private int myStart;
+		private int myEnd;
+		private final int myDepth;
+
+		private Range(int start, int depth)
+		{
+			myStart = start;
+			myEnd = -1;
+			myDepth = depth;
+		}
+
+		/**
+		 * @return offset of the start tag of the component
+		 */
+		int getStartOffset()
+		{
+			return myStart;
+		}
+
+		/**
+		 * @return offset right after the end of the component element
+		 */
+		int getEndOffset()
+		{
+			return myEnd;
+		}
+
+		/**
+		 * @return number of elements enclosing the component element
+		 */
+		int getDepth()
+		{
+			return myDepth;
+		}
+	}
+}
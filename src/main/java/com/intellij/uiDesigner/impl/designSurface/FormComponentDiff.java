@@ -0,0 +1,236 @@
+package com.intellij.uiDesigner.impl.designSurface;
+
+import com.intellij.uiDesigner.core.UIFormXmlConstants;
+import com.intellij.uiDesigner.impl.binding.FormTagScanner;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.jetbrains.annotations.NonNls;
+
+import java.util.*;
+
+/**
+ * Compares two texts of a form component by component. The content of a component is its own tag and the tags describing it
+ * (constraints, properties, border, client properties...), but not its child components, which are compared on their own.
+ * Forms keep all their data in attributes, so tags with their attributes cover the whole content.
+ */
+final class FormComponentDiff
+{
+	/**
+	 * Key of the root <code>&lt;form&gt;</code> tag, whose content also covers button groups and inspection suppressions.
+	 */
+	private static final String ROOT_KEY = "";
+	@NonNls
+	private static final String CHILDREN_ELEMENT = "children";
+
+	private FormComponentDiff()
+	{
+	}
+
+	/**
+	 * A component is changed if its content, its parent or the ids of its children differ. Components which only exist in
+	 * the new text are changed too, as well as their new parents.
+	 *
+	 * @return ids of the changed components of the new text, or null if the texts cannot be compared component by component:
+	 * either text is not a well-formed form, component ids are not unique, or the root content changed
+	 */
+	@Nullable
+	static Set<String> findChangedComponents(@Nonnull CharSequence oldText, @Nonnull CharSequence newText)
+	{
+		final Map<String, ComponentContent> oldComponents = collectComponents(oldText);
+		final Map<String, ComponentContent> newComponents = collectComponents(newText);
+		if(oldComponents == null || newComponents == null || !isSame(oldComponents.get(ROOT_KEY), newComponents.get(ROOT_KEY)))
+		{
+			return null;
+		}
+		final Set<String> result = new LinkedHashSet<>();
+		for(Map.Entry<String, ComponentContent> entry : newComponents.entrySet())
+		{
+			if(!isSame(oldComponents.get(entry.getKey()), entry.getValue()))
+			{
+				result.add(entry.getKey());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Removes the elements of components which neither changed nor contain a changed component, unless they are inside
+	 * a changed component. What is left is a form with the changed components, their ancestors and descendants, which is enough
+	 * to create the changed components again without parsing the rest of the form.
+	 *
+	 * @param changedIds ids of changed components of the text, see {@link #findChangedComponents(CharSequence, CharSequence)}
+	 * @return null if the text is not a well-formed form
+	 */
+	@Nullable
+	static String removeUnchangedComponents(@Nonnull CharSequence text, @Nonnull Set<String> changedIds)
+	{
+		final Map<FormTagScanner.Tag, ComponentState> states = new IdentityHashMap<>();
+		// start and end offsets of removed elements, in the order their elements end
+		final List<int[]> removedRanges = new ArrayList<>();
+		final boolean scanned = FormTagScanner.scan(text, new FormTagScanner.Visitor()
+		{
+			@Override
+			public boolean visitTag(@Nonnull FormTagScanner.Tag tag)
+			{
+				if(isComponentTag(tag))
+				{
+					FormTagScanner.Tag parent = tag.getParent();
+					while(parent != null && !states.containsKey(parent))
+					{
+						parent = parent.getParent();
+					}
+					final ComponentState parentState = parent != null ? states.get(parent) : null;
+					states.put(tag, new ComponentState(parentState, changedIds.contains(tag.getAttributeValue(UIFormXmlConstants.ATTRIBUTE_ID))));
+				}
+				return true;
+			}
+
+			@Override
+			public void visitEndTag(@Nonnull FormTagScanner.Tag tag, int endOffset)
+			{
+				final ComponentState state = states.remove(tag);
+				if(state == null)
+				{
+					return;
+				}
+				if(state.isKept())
+				{
+					if(state.myParent != null && (state.myChanged || state.myHasChangedDescendant))
+					{
+						state.myParent.myHasChangedDescendant = true;
+					}
+					return;
+				}
+				// removed descendants are covered by the element itself
+				while(!removedRanges.isEmpty() && removedRanges.get(removedRanges.size() - 1)[0] >= tag.getStartOffset())
+				{
+					removedRanges.remove(removedRanges.size() - 1);
+				}
+				removedRanges.add(new int[]{tag.getStartOffset(), endOffset});
+			}
+		});
+		if(!scanned)
+		{
+			return null;
+		}
+		final StringBuilder result = new StringBuilder(text.length());
+		int offset = 0;
+		for(int[] range : removedRanges)
+		{
+			result.append(text, offset, range[0]);
+			offset = range[1];
+		}
+		return result.append(text, offset, text.length()).toString();
+	}
+
+	private static boolean isSame(@Nullable ComponentContent oldContent, @Nullable ComponentContent newContent)
+	{
+		return oldContent != null &&
+				newContent != null &&
+				Objects.equals(oldContent.myParentId, newContent.myParentId) &&
+				oldContent.myChildIds.equals(newContent.myChildIds) &&
+				oldContent.myText.toString().equals(newContent.myText.toString());
+	}
+
+	/**
+	 * Components are the tags with an id right inside the root tag or inside <code>&lt;children&gt;</code> of a container.
+	 */
+	static boolean isComponentTag(@Nonnull FormTagScanner.Tag tag)
+	{
+		final FormTagScanner.Tag parent = tag.getParent();
+		return parent != null &&
+				(parent.getParent() == null || CHILDREN_ELEMENT.equals(parent.getName())) &&
+				tag.getAttribute(UIFormXmlConstants.ATTRIBUTE_ID) != null;
+	}
+
+	@Nullable
+	private static Map<String, ComponentContent> collectComponents(@Nonnull CharSequence text)
+	{
+		final Map<String, ComponentContent> components = new HashMap<>();
+		final Map<FormTagScanner.Tag, String> owners = new IdentityHashMap<>();
+		final Map<FormTagScanner.Tag, Integer> ordinals = new IdentityHashMap<>();
+		final boolean scanned = FormTagScanner.scan(text, tag ->
+		{
+			final FormTagScanner.Tag parent = tag.getParent();
+			if(parent == null)
+			{
+				final ComponentContent root = new ComponentContent(null);
+				components.put(ROOT_KEY, root);
+				owners.put(tag, ROOT_KEY);
+				ordinals.put(tag, root.append(tag, -1));
+				return true;
+			}
+
+			final String parentOwner = owners.get(parent);
+			final ComponentContent parentContent = components.get(parentOwner);
+			if(isComponentTag(tag))
+			{
+				final String id = tag.getAttributeValue(UIFormXmlConstants.ATTRIBUTE_ID);
+				if(id.isEmpty() || components.containsKey(id))
+				{
+					return false;
+				}
+				final ComponentContent component = new ComponentContent(parentOwner);
+				parentContent.myChildIds.add(id);
+				components.put(id, component);
+				owners.put(tag, id);
+				ordinals.put(tag, component.append(tag, -1));
+			}
+			else
+			{
+				// the ordinal of the parent keeps the nesting of tags inside the component
+				owners.put(tag, parentOwner);
+				ordinals.put(tag, parentContent.append(tag, ordinals.get(parent)));
+			}
+			return true;
+		});
+		return scanned ? components : null;
+	}
+
+	private static final class ComponentState
+	{
+		private final ComponentState myParent;
+		private final boolean myChanged;
+		private final boolean myInsideChanged;
+		private boolean myHasChangedDescendant;
+
+		private ComponentState(@Nullable ComponentState parent, boolean changed)
+		{
+			myParent = parent;
+			myChanged = changed;
+			myInsideChanged = parent != null && (parent.myChanged || parent.myInsideChanged);
+		}
+
+		private boolean isKept()
+		{
+			return myChanged || myInsideChanged || myHasChangedDescendant;
+		}
+	}
+
+	private static final class ComponentContent
+	{
+		private final String myParentId;
+		private final List<String> myChildIds = new ArrayList<>();
+		private final StringBuilder myText = new StringBuilder();
+		private int myTagCount;
+
+		private ComponentContent(@Nullable String parentId)
+		{
+			myParentId = parentId;
+		}
+
+		/**
+		 * @return ordinal of the tag inside the component
+		 */
+		private int append(@Nonnull FormTagScanner.Tag tag, int parentOrdinal)
+		{
+			myText.append('<').append(parentOrdinal).append(' ').append(tag.getName());
+			for(FormTagScanner.Attribute attribute : tag.getAttributes())
+			{
+				myText.append(' ').append(attribute.getName()).append('=').append(attribute.getValue().length()).append(':').append(attribute.getValue());
+			}
+			myText.append('>');
+			return myTagCount++;
+		}
+	}
+}
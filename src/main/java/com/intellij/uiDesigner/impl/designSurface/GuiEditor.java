@@ -20,8 +20,10 @@ import com.intellij.java.language.psi.PsiClass;
 import com.intellij.lang.properties.psi.PropertiesFile;
 import com.intellij.uiDesigner.compiler.Utils;
 import com.intellij.uiDesigner.core.GridLayoutManager;
+import com.intellij.uiDesigner.core.UIFormXmlConstants;
 import com.intellij.uiDesigner.core.Util;
 import com.intellij.uiDesigner.impl.*;
+import com.intellij.uiDesigner.impl.binding.FormTagScanner;
 import com.intellij.uiDesigner.impl.componentTree.ComponentPtr;
 import com.intellij.uiDesigner.impl.componentTree.ComponentSelectionListener;
 import com.intellij.uiDesigner.impl.componentTree.ComponentTree;
@@ -33,11 +35,13 @@ import com.intellij.uiDesigner.impl.propertyInspector.PropertyInspector;
 import com.intellij.uiDesigner.impl.propertyInspector.properties.IntroStringProperty;
 import com.intellij.uiDesigner.impl.radComponents.RadComponent;
 import com.intellij.uiDesigner.impl.radComponents.RadContainer;
+import com.intellij.uiDesigner.impl.radComponents.RadNestedForm;
 import com.intellij.uiDesigner.impl.radComponents.RadRootContainer;
 import com.intellij.uiDesigner.impl.radComponents.RadTabbedPane;
 import com.intellij.uiDesigner.lw.CompiledClassPropertiesProvider;
 import com.intellij.uiDesigner.lw.IComponent;
 import com.intellij.uiDesigner.lw.IProperty;
+import com.intellij.uiDesigner.lw.LwComponent;
 import com.intellij.uiDesigner.lw.LwRootContainer;
 import consulo.application.Application;
 import consulo.application.ApplicationManager;
@@ -68,6 +72,7 @@ import consulo.language.util.ModuleUtilCore;
 import consulo.logging.Logger;
 import consulo.module.Module;
 import consulo.project.Project;
+import consulo.ui.ModalityState;
 import consulo.ui.ex.DeleteProvider;
 import consulo.ui.ex.JBColor;
 import consulo.ui.ex.action.*;
@@ -100,9 +105,16 @@ import java.awt.event.FocusListener;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Supplier;
 
 /**
@@ -206,6 +218,17 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 	 * is <code>true</code> then we do not react on incoming DocumentEvent.
 	 */
 	private boolean myInsideChange;
+	/**
+	 * Document text the component tree was last read from or saved as, and the class loader its components were created with.
+	 * Null if the tree does not correspond to a known text.
+	 */
+	private String mySyncedText;
+	private long mySyncedStamp;
+	/**
+	 * Ranges of components in {@link #mySyncedText}, computed on demand.
+	 */
+	private ComponentTextRanges mySyncedTextRanges;
+	private ClassLoader mySyncedClassLoader;
 	private final DocumentAdapter myDocumentListener;
 	private final CardLayout myCardLayout = new CardLayout();
 	private final ThreeComponentsSplitter myContentSplitter = new ThreeComponentsSplitter();
@@ -215,9 +238,21 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 	private final static String CARD_VALID = "valid";
 	@NonNls
 	private final static String CARD_INVALID = "invalid";
+	@NonNls
+	private final static String CARD_LOADING = "loading";
 	private final JPanel myValidCard;
 	private final JPanel myInvalidCard;
+	private final JPanel myLoadingCard;
 	private boolean myInvalid = false;
+	/**
+	 * True while the form is prepared in background and a fictive root container is shown
+	 */
+	private boolean myLoading = false;
+	/**
+	 * Number of reads started; a background read creates its components only if no other read started meanwhile
+	 */
+	private int myReadCount;
+	private final List<Runnable> myLoadedActions = new ArrayList<Runnable>();
 
 	private final CutCopyPasteSupport myCutCopyPasteSupport;
 	/**
@@ -271,9 +306,11 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 
 		myValidCard = new JPanel(new BorderLayout());
 		myInvalidCard = createInvalidCard();
+		myLoadingCard = createLoadingCard();
 
 		myCardPanel.add(myValidCard, CARD_VALID);
 		myCardPanel.add(myInvalidCard, CARD_INVALID);
+		myCardPanel.add(myLoadingCard, CARD_LOADING);
 
 		JPanel contentPanel = new JPanel(new LightFillLayout());
 		JLabel toolbar = new JLabel();
@@ -331,7 +368,7 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 				{
 					UndoManager undoManager = ProjectUndoManager.getInstance(getProject());
 					alarm.cancelAllRequests();
-					alarm.addRequest(new MySynchronizeRequest(undoManager.isUndoInProgress() || undoManager.isRedoInProgress()),
+					alarm.addRequest(new MySynchronizeRequest(undoManager.isUndoInProgress() || undoManager.isRedoInProgress(), true),
 							100/*any arbitrary delay*/, Application.get().getModalityStateForComponent(GuiEditor.this));
 				}
 			}
@@ -342,7 +379,7 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 		myDocument.addDocumentListener(myDocumentListener);
 
 		// Read form from file
-		readFromFile(false);
+		readFromFileInBackground();
 
 		JPanel panel = new JPanel(new GridBagLayout());
 		panel.setBackground(GridCaptionPanel.getGutterColor());
@@ -532,6 +569,15 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 	}
 
 	public void refreshAndSave(final boolean forceSync)
+	{
+		refreshAndSave(forceSync, Collections.<RadComponent>emptyList());
+	}
+
+	/**
+	 * @param modifiedComponents components whose elements, including their children, hold all changes of the form since it was
+	 *                           last saved; only they are serialized again. Empty if any part of the form may have changed.
+	 */
+	public void refreshAndSave(final boolean forceSync, @Nonnull final Collection<RadComponent> modifiedComponents)
 	{
 		// Update property inspector
 		final PropertyInspector propertyInspector = DesignerToolWindowManager.getInstance(this).getPropertyInspector();
@@ -541,7 +587,7 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 		}
 
 		refresh();
-		saveToFile();
+		saveToFile(modifiedComponents);
 		// TODO[yole]: install appropriate listeners so that the captions repaint themselves at correct time
 		myHorzCaptionPanel.repaint();
 		myVertCaptionPanel.repaint();
@@ -627,6 +673,14 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 		return panel;
 	}
 
+	private static JPanel createLoadingCard()
+	{
+		final JPanel panel = new JPanel(new GridBagLayout());
+		panel.add(new JLabel(UIDesignerBundle.message("progress.loading.form")), new GridBagConstraints(0, 0, 1, 1, 1, 1, GridBagConstraints.CENTER,
+				GridBagConstraints.NONE, new Insets(0, 0, 0, 0), 0, 0));
+		return panel;
+	}
+
 	/**
 	 * @return the component which represents DnD layer. All currently
 	 * dragged (moved) component are on this layer.
@@ -726,8 +780,13 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 		myListenerList.remove(HierarchyChangeListener.class, l);
 	}
 
-	private void saveToFile()
+	private void saveToFile(@Nonnull final Collection<RadComponent> modifiedComponents)
 	{
+		if(myLoading)
+		{
+			// the fictive root container shown while loading must not replace the form
+			return;
+		}
 		LOG.debug("GuiEditor.saveToFile(): group ID=" + myNextSaveGroupId);
 		CommandProcessor.getInstance().executeCommand(getProject(), new Runnable()
 		{
@@ -742,6 +801,10 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 						myInsideChange = true;
 						try
 						{
+							if(!modifiedComponents.isEmpty() && saveModifiedComponents(modifiedComponents))
+							{
+								return;
+							}
 							final XmlWriter writer = new XmlWriter();
 							getRootContainer().write(writer);
 							final String newText = writer.getText();
@@ -764,6 +827,7 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 								LOG.error(e);
 								myDocument.replaceString(0, oldText.length(), newText);
 							}
+							setSyncedText(newText);
 						}
 						finally
 						{
@@ -778,6 +842,84 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 		fireHierarchyChanged();
 	}
 
+	/**
+	 * Replaces only the elements of the modified components in the document, keeping the rest of the text. Must be called
+	 * inside a write action.
+	 *
+	 * @return false if the whole form must be saved: the document changed since the last synchronization, the root container
+	 * is modified, or the components are not found in the text
+	 */
+	private boolean saveModifiedComponents(@Nonnull final Collection<RadComponent> modifiedComponents)
+	{
+		if(mySyncedText == null || mySyncedStamp != myDocument.getModificationStamp())
+		{
+			return false;
+		}
+		if(mySyncedTextRanges == null)
+		{
+			mySyncedTextRanges = ComponentTextRanges.create(mySyncedText);
+			if(mySyncedTextRanges == null)
+			{
+				return false;
+			}
+		}
+
+		// an element covers its children, so only the topmost modified components are written
+		final Set<RadComponent> modified = new HashSet<RadComponent>(modifiedComponents);
+		final List<RadComponent> topmost = new ArrayList<RadComponent>();
+		for(RadComponent component : modified)
+		{
+			if(component instanceof RadRootContainer || component.getParent() == null)
+			{
+				return false;
+			}
+			boolean hasModifiedParent = false;
+			for(RadContainer parent = component.getParent(); parent != null; parent = parent.getParent())
+			{
+				hasModifiedParent |= modified.contains(parent);
+			}
+			if(!hasModifiedParent)
+			{
+				if(mySyncedTextRanges.get(component.getId()) == null)
+				{
+					return false;
+				}
+				topmost.add(component);
+			}
+		}
+		// replace from the end of the text, so the offsets of the remaining elements stay valid
+		topmost.sort((c1, c2) -> mySyncedTextRanges.get(c2.getId()).getStartOffset() - mySyncedTextRanges.get(c1.getId()).getStartOffset());
+
+		final StringBuilder text = new StringBuilder(mySyncedText);
+		for(RadComponent component : topmost)
+		{
+			final ComponentTextRanges.Range range = mySyncedTextRanges.get(component.getId());
+			final XmlWriter writer = XmlWriter.createFragmentWriter(range.getDepth());
+			component.write(writer);
+			// the range spans from the start tag to the end tag, without the indent and the line break around them
+			final String element = writer.getText().trim();
+			if(element.length() == range.getEndOffset() - range.getStartOffset() &&
+					mySyncedText.regionMatches(range.getStartOffset(), element, 0, element.length()))
+			{
+				// e.g. a property was set back to its value, the document must not get an empty change
+				continue;
+			}
+			myDocument.replaceString(range.getStartOffset(), range.getEndOffset(), element);
+			text.replace(range.getStartOffset(), range.getEndOffset(), element);
+			mySyncedTextRanges.replaced(range, element.length());
+		}
+		mySyncedText = text.toString();
+		mySyncedStamp = myDocument.getModificationStamp();
+		return true;
+	}
+
+	private void setSyncedText(@Nullable final String text)
+	{
+		mySyncedText = text;
+		mySyncedStamp = myDocument.getModificationStamp();
+		mySyncedTextRanges = null;
+	}
+
 	public ActiveDecorationLayer getActiveDecorationLayer()
 	{
 		return myActiveDecorationLayer;
@@ -1014,56 +1156,286 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 	 * @param keepSelection if true, the GUI designer tries to preserve the selection state after reload.
 	 */
 	public void readFromFile(final boolean keepSelection)
+	{
+		final int readCount = ++myReadCount;
+		final String text = myDocument.getText();
+		final Ref<Throwable> error = new Ref<Throwable>();
+		final PreparedFormModel model = prepareModel(getModule(), text, error);
+		readPreparedModel(readCount, text, model, error.get(), keepSelection);
+	}
+
+	/**
+	 * Reads the form like {@link #readFromFile(boolean)}, but shows a progress placeholder while the model is prepared in a pooled
+	 * thread, so only the components are created on the event dispatch thread. Opening large forms does not block the UI.
+	 */
+	private void readFromFileInBackground()
+	{
+		final Application application = ApplicationManager.getApplication();
+		if(application.isUnitTestMode())
+		{
+			readFromFile(false);
+			return;
+		}
+
+		final int readCount = ++myReadCount;
+		final String text = myDocument.getText();
+		final Module module = getModule();
+		// the editor may be opened from a modal dialog, and the result must still be applied there
+		final ModalityState modalityState = application.getModalityStateForComponent(GuiEditor.this);
+		myLoading = true;
+		setRootContainer(new RadRootContainer(this, "0"));
+		myCardLayout.show(myCardPanel, CARD_LOADING);
+		application.executeOnPooledThread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				final Ref<Throwable> error = new Ref<Throwable>();
+				final PreparedFormModel model = prepareModel(module, text, error);
+				application.invokeLater(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						if(myWhere == null && !getProject().isDisposed())
+						{
+							readPreparedModel(readCount, text, model, error.get(), false);
+						}
+					}
+				}, modalityState);
+			}
+		});
+	}
+
+	@Nullable
+	private PreparedFormModel prepareModel(@Nonnull final Module module, @Nonnull final String text, @Nonnull final Ref<Throwable> error)
 	{
 		try
 		{
-			ComponentPtr[] selection = null;
-			Map<String, String> tabbedPaneSelectedTabs = null;
-			if(keepSelection)
+			return PreparedFormModel.prepare(module, myFile, text);
+		}
+		catch(Exception exc)
+		{
+			error.set(exc);
+		}
+		catch(LinkageError exc)
+		{
+			error.set(exc);
+		}
+		return null;
+	}
+
+	/**
+	 * Creates the components of the prepared model, unless another read started after the given one.
+	 */
+	private void readPreparedModel(final int readCount,
+								   @Nonnull final String text,
+								   @Nullable final PreparedFormModel model,
+								   @Nullable final Throwable prepareError,
+								   final boolean keepSelection)
+	{
+		if(readCount != myReadCount)
+		{
+			return;
+		}
+		myLoading = false;
+		Throwable error = prepareError;
+		if(error == null)
+		{
+			try
+			{
+				ComponentPtr[] selection = null;
+				Map<String, String> tabbedPaneSelectedTabs = null;
+				if(keepSelection)
+				{
+					selection = SelectionState.getSelection(this);
+					tabbedPaneSelectedTabs = saveTabbedPaneSelectedTabs();
+				}
+				Locale oldLocale = null;
+				if(myRootContainer != null)
+				{
+					oldLocale = myRootContainer.getStringDescriptorLocale();
+				}
+
+				final RadRootContainer container = XmlReader.createRoot(this, model, oldLocale);
+				setRootContainer(container);
+				if(keepSelection)
+				{
+					SelectionState.restoreSelection(this, selection);
+					restoreTabbedPaneSelectedTabs(tabbedPaneSelectedTabs);
+				}
+				setSyncedText(text);
+				mySyncedClassLoader = model.getClassLoader();
+				myInvalid = false;
+				myCardLayout.show(myCardPanel, CARD_VALID);
+				refresh();
+			}
+			catch(Exception exc)
 			{
-				selection = SelectionState.getSelection(this);
-				tabbedPaneSelectedTabs = saveTabbedPaneSelectedTabs();
+				error = exc;
 			}
-			Locale oldLocale = null;
-			if(myRootContainer != null)
+			catch(LinkageError exc)
 			{
-				oldLocale = myRootContainer.getStringDescriptorLocale();
+				error = exc;
 			}
+		}
+		if(error != null)
+		{
+			while(error instanceof InvocationTargetException)
+			{
+				error = error.getCause();
+			}
+			showInvalidCard(error);
+		}
+		runLoadedActions();
+	}
 
-			final String text = myDocument.getText();
+	/**
+	 * Runs the action once the form is read, right away unless the form is being loaded in background.
+	 */
+	public void runWhenLoaded(@Nonnull final Runnable action)
+	{
+		if(myLoading)
+		{
+			myLoadedActions.add(action);
+		}
+		else
+		{
+			action.run();
+		}
+	}
+
+	private void runLoadedActions()
+	{
+		final List<Runnable> actions = new ArrayList<Runnable>(myLoadedActions);
+		myLoadedActions.clear();
+		for(Runnable action : actions)
+		{
+			action.run();
+		}
+	}
+
+	/**
+	 * Applies changes of the document to the component tree. Only the components whose text changed since the tree was last read
+	 * or saved are created again, the other ones keep their Swing components and cached state. The selection is kept in both cases.
+	 * Falls back to {@link #readFromFile(boolean)} when the change is not limited to components.
+	 *
+	 * @param keepSelection if true and the form has to be read from scratch, the GUI designer tries to preserve the selection state.
+	 */
+	private void synchronizeWithDocument(final boolean keepSelection)
+	{
+		if(!updateChangedComponents())
+		{
+			readFromFile(keepSelection);
+		}
+	}
 
-			final ClassLoader classLoader = LoaderFactory.getInstance(getProject()).getLoader(myFile);
+	/**
+	 * @return false if the tree must be read from scratch
+	 */
+	private boolean updateChangedComponents()
+	{
+		if(myInvalid || myRootContainer == null || mySyncedText == null)
+		{
+			return false;
+		}
+		final String text = myDocument.getText();
+		final ClassLoader classLoader = LoaderFactory.getInstance(getProject()).getLoader(myFile);
+		if(classLoader != mySyncedClassLoader)
+		{
+			return false;
+		}
+		final Set<String> changedIds = FormComponentDiff.findChangedComponents(mySyncedText, text);
+		if(changedIds == null)
+		{
+			return false;
+		}
 
-			final LwRootContainer rootContainer = Utils.getRootContainer(text, new CompiledClassPropertiesProvider(classLoader));
-			final RadRootContainer container = XmlReader.createRoot(this, rootContainer, classLoader, oldLocale);
-			setRootContainer(container);
-			if(keepSelection)
+		try
+		{
+			if(!changedIds.isEmpty())
 			{
+				// the rest of the text was parsed when the tree was read, so only the changed components and their ancestors are
+				// parsed again; this also validates them, a broken text is left to readFromFile() to show the invalid card
+				final String changedText = FormComponentDiff.removeUnchangedComponents(text, changedIds);
+				if(changedText == null)
+				{
+					return false;
+				}
+				final LwRootContainer lwRootContainer = Utils.getRootContainer(changedText, new CompiledClassPropertiesProvider(classLoader));
+				final ComponentPtr[] selection = SelectionState.getSelection(this);
+				final Map<String, String> tabbedPaneSelectedTabs = saveTabbedPaneSelectedTabs();
+
+				final Map<String, LwComponent> lwComponents = collectComponentsById(lwRootContainer);
+				final Map<String, RadComponent> oldComponents = collectComponentsById(myRootContainer);
+				final Map<String, RadComponent> reusedComponents = new HashMap<String, RadComponent>(oldComponents);
+				reusedComponents.keySet().removeAll(changedIds);
+
+				for(String id : changedIds)
+				{
+					final RadComponent oldComponent = oldComponents.get(id);
+					// new components and children of recreated containers are created along with their parents
+					if(oldComponent == null || changedIds.contains(oldComponent.getParent().getId()))
+					{
+						continue;
+					}
+					final LwComponent lwComponent = lwComponents.get(id);
+					if(lwComponent == null)
+					{
+						return false;
+					}
+					final RadComponent newComponent =
+							XmlReader.createComponent(this, lwComponent, classLoader, myRootContainer.getStringDescriptorLocale(), reusedComponents);
+					final RadContainer parent = oldComponent.getParent();
+					final int index = parent.indexOfComponent(oldComponent);
+					parent.removeComponent(oldComponent);
+					parent.addComponent(newComponent, index);
+				}
+
 				SelectionState.restoreSelection(this, selection);
 				restoreTabbedPaneSelectedTabs(tabbedPaneSelectedTabs);
+				refresh();
+				fireHierarchyChanged();
 			}
-			myInvalid = false;
-			myCardLayout.show(myCardPanel, CARD_VALID);
-			refresh();
+			setSyncedText(text);
+			return true;
 		}
-		catch(Exception exc)
+		catch(Exception e)
 		{
-			Throwable original = exc;
-			while(original instanceof InvocationTargetException)
-			{
-				original = original.getCause();
-			}
-			showInvalidCard(original);
+			LOG.debug("Cannot update changed components, reading the form from scratch", e);
+			return false;
 		}
-		catch(final LinkageError exc)
+		catch(LinkageError e)
 		{
-			showInvalidCard(exc);
+			LOG.debug("Cannot update changed components, reading the form from scratch", e);
+			return false;
 		}
 	}
 
+	@Nonnull
+	private static <T extends IComponent> Map<String, T> collectComponentsById(@Nonnull final IComponent root)
+	{
+		final Map<String, T> result = new HashMap<String, T>();
+		FormEditingUtil.iterate(root, new FormEditingUtil.ComponentVisitor()
+		{
+			@Override
+			public boolean visit(final IComponent component)
+			{
+				if(component != root)
+				{
+					//noinspection unchecked
+					result.put(component.getId(), (T) component);
+				}
+				return true;
+			}
+		});
+		return result;
+	}
+
 	private void showInvalidCard(final Throwable exc)
 	{
 		LOG.info(exc);
+		setSyncedText(null);
 		// setting fictive container
 		setRootContainer(new RadRootContainer(this, "0"));
 		myFormInvalidLabel.setText(UIDesignerBundle.message("error.form.file.is.invalid.message", FormEditingUtil.getExceptionMessage(exc)));
@@ -1134,6 +1506,10 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 		{
 			return myGlassLayer;
 		}
+		else if(myLoading)
+		{
+			return myLoadingCard;
+		}
 		else
 		{
 			return myInvalidCard;
@@ -1370,7 +1746,9 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 	{
 		private final Alarm myAlarm;
 		private final MyRefreshPropertiesRequest myRefreshPropertiesRequest = new MyRefreshPropertiesRequest();
-		private final MySynchronizeRequest mySynchronizeRequest = new MySynchronizeRequest(true);
+		private final MySynchronizeRequest mySynchronizeRequest = new MySynchronizeRequest(true, false);
+		private final Set<VirtualFile> myChangedForms = new LinkedHashSet<VirtualFile>();
+		private final Runnable myNestedFormsCheckRequest = this::checkChangedForms;
 
 		public MyPsiTreeChangeListener()
 		{
@@ -1439,27 +1817,103 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 				}
 				else if(containingFile instanceof PsiPlainTextFile && containingFile.getFileType().equals(GuiFormFileType.INSTANCE))
 				{
-					// quick check if relevant
-					String resourceName = FormEditingUtil.buildResourceName(containingFile);
-					if(myDocument.getText().indexOf(resourceName) >= 0)
+					// indexes are not queried from inside the change, the forms are checked once the changes settle
+					VirtualFile changedForm = containingFile.getVirtualFile();
+					if(changedForm != null && !changedForm.equals(myFile) && myChangedForms.add(changedForm))
 					{
-						LOG.debug("Received PSI change event for nested form");
-						// TODO[yole]: handle multiple nesting
-						myAlarm.cancelRequest(mySynchronizeRequest);
-						myAlarm.addRequest(mySynchronizeRequest, 500, Application.get().getModalityStateForComponent(GuiEditor.this));
+						myAlarm.cancelRequest(myNestedFormsCheckRequest);
+						myAlarm.addRequest(myNestedFormsCheckRequest, 500, Application.get().getModalityStateForComponent(GuiEditor.this));
 					}
 				}
 			}
 		}
+
+		private void checkChangedForms()
+		{
+			if(getModule().isDisposed() || getProject().isDisposed())
+			{
+				return;
+			}
+			List<VirtualFile> changedForms = new ArrayList<VirtualFile>(myChangedForms);
+			myChangedForms.clear();
+			for(VirtualFile changedForm : changedForms)
+			{
+				if(changedForm.isValid() && isNestedForm(changedForm))
+				{
+					LOG.debug("Received PSI change event for nested form");
+					myAlarm.cancelRequest(mySynchronizeRequest);
+					myAlarm.addRequest(mySynchronizeRequest, 0, Application.get().getModalityStateForComponent(GuiEditor.this));
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Checks the loaded components rather than indexes, so nothing is searched for forms which do not embed other forms.
+		 *
+		 * @return true if the edited form embeds the given form, directly or through other nested forms
+		 */
+		private boolean isNestedForm(@Nonnull VirtualFile formFile)
+		{
+			PsiFile psiFile = PsiManager.getInstance(getProject()).findFile(formFile);
+			String resourceName = psiFile != null ? FormEditingUtil.buildResourceName(psiFile) : null;
+			if(resourceName == null)
+			{
+				return false;
+			}
+			Set<String> nestedFormFileNames = new HashSet<String>();
+			if(myRootContainer != null)
+			{
+				collectNestedFormFileNames(myRootContainer, nestedFormFileNames);
+			}
+			if(nestedFormFileNames.contains(resourceName))
+			{
+				return true;
+			}
+			// nested forms which could not be loaded are only in the text, as form-file attributes of the edited form
+			final boolean[] nested = new boolean[1];
+			FormTagScanner.scan(myDocument.getCharsSequence(), tag ->
+			{
+				nested[0] = resourceName.equals(tag.getAttributeValue(UIFormXmlConstants.ATTRIBUTE_FORM_FILE));
+				return !nested[0];
+			});
+			return nested[0];
+		}
+	}
+
+	private static void collectNestedFormFileNames(@Nonnull RadContainer container, @Nonnull final Set<String> result)
+	{
+		FormEditingUtil.iterate(container, new FormEditingUtil.ComponentVisitor<RadComponent>()
+		{
+			@Override
+			public boolean visit(RadComponent component)
+			{
+				if(component instanceof RadNestedForm)
+				{
+					RadNestedForm nestedForm = (RadNestedForm) component;
+					// loops of nested forms are never loaded, the check only keeps a broken tree from hanging the search
+					if(result.add(nestedForm.getFormFileName()))
+					{
+						collectNestedFormFileNames(nestedForm.getNestedRootContainer(), result);
+					}
+				}
+				return true;
+			}
+		});
 	}
 
 	private class MySynchronizeRequest implements Runnable
 	{
 		private final boolean myKeepSelection;
+		private final boolean myIncremental;
 
-		public MySynchronizeRequest(final boolean keepSelection)
+		/**
+		 * @param incremental false if the form must be read from scratch, e.g. because a nested form changed
+		 */
+		public MySynchronizeRequest(final boolean keepSelection, final boolean incremental)
 		{
 			myKeepSelection = keepSelection;
+			myIncremental = incremental;
 		}
 
 		@Override
@@ -1476,7 +1930,14 @@ public final class GuiEditor extends JPanel implements DesignerEditorPanelFacade
 			}
 			LOG.debug("Synchronizing GUI editor " + myFile.getName() + " to document");
 			PsiDocumentManager.getInstance(project).commitDocument(myDocument);
-			readFromFile(myKeepSelection);
+			if(myIncremental)
+			{
+				synchronizeWithDocument(myKeepSelection);
+			}
+			else
+			{
+				readFromFile(myKeepSelection);
+			}
 		}
 	}
 
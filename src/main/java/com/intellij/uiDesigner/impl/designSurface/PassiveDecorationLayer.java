@@ -72,7 +72,7 @@ class PassiveDecorationLayer extends JComponent
 			public boolean visit(final RadComponent component)
 			{
 				final Point point = SwingUtilities.convertPoint(component.getDelegee(), 0, 0, rootContainer.getDelegee());
-				RadButtonGroup group = (RadButtonGroup) FormEditingUtil.findGroupForComponent(rootContainer, component);
+				RadButtonGroup group = rootContainer.findGroupForComponent(component.getId());
 				if(group != null && !paintedGroups.contains(group) && (component.isSelected() || selectedGroups.contains(group)))
 				{
 					paintedGroups.add(group);
@@ -146,28 +146,35 @@ public final class UIFormEditor extends UserDataHolderBase implements /*Navigata
 
     @Override
     public void setState(@Nonnull final FileEditorState state) {
-        FormEditingUtil.clearSelection(myEditor.getRootContainer());
-        final String[] ids = ((MyEditorState) state).getSelectedComponentIds();
-        for (final String id : ids) {
-            final RadComponent component = (RadComponent) FormEditingUtil.findComponent(myEditor.getRootContainer(), id);
-            if (component != null) {
-                component.setSelected(true);
+        // the selection refers to components which do not exist until the form is loaded
+        myEditor.runWhenLoaded(() -> {
+            FormEditingUtil.clearSelection(myEditor.getRootContainer());
+            final String[] ids = ((MyEditorState) state).getSelectedComponentIds();
+            for (final String id : ids) {
+                final RadComponent component = myEditor.getRootContainer().findComponent(id);
+                if (component != null) {
+                    component.setSelected(true);
+                }
             }
-        }
+        });
     }
 
     public void selectComponent(@Nonnull final String binding) {
-        final RadComponent component = (RadComponent) FormEditingUtil.findComponentWithBinding(myEditor.getRootContainer(), binding);
-        if (component != null) {
-            FormEditingUtil.selectSingleComponent(getEditor(), component);
-        }
+        myEditor.runWhenLoaded(() -> {
+            final RadComponent component = myEditor.getRootContainer().findComponentWithBinding(binding, null);
+            if (component != null) {
+                FormEditingUtil.selectSingleComponent(getEditor(), component);
+            }
+        });
     }
 
     public void selectComponentById(@Nonnull final String id) {
-        final RadComponent component = (RadComponent) FormEditingUtil.findComponent(myEditor.getRootContainer(), id);
-        if (component != null) {
-            FormEditingUtil.selectSingleComponent(getEditor(), component);
-        }
+        myEditor.runWhenLoaded(() -> {
+            final RadComponent component = myEditor.getRootContainer().findComponent(id);
+            if (component != null) {
+                FormEditingUtil.selectSingleComponent(getEditor(), component);
+            }
+        });
     }
 
     @Override
@@ -16,11 +16,10 @@
 package com.intellij.uiDesigner.impl.inspections;
 
 import com.intellij.java.analysis.impl.codeInspection.BaseJavaLocalInspectionTool;
-import com.intellij.uiDesigner.compiler.Utils;
 import com.intellij.uiDesigner.impl.ErrorInfo;
 import com.intellij.uiDesigner.impl.FormEditingUtil;
+import com.intellij.uiDesigner.impl.FormModelCache;
 import com.intellij.uiDesigner.impl.GuiFormFileType;
-import com.intellij.uiDesigner.impl.PsiPropertiesProvider;
 import com.intellij.uiDesigner.impl.designSurface.GuiEditor;
 import com.intellij.uiDesigner.impl.radComponents.RadComponent;
 import com.intellij.uiDesigner.lw.IComponent;
@@ -91,7 +90,7 @@ public abstract class BaseFormInspection extends BaseJavaLocalInspectionTool imp
 
       final LwRootContainer rootContainer;
       try {
-        rootContainer = Utils.getRootContainer(file.getText(), new PsiPropertiesProvider(module));
+        rootContainer = FormModelCache.getInstance(file.getProject()).getRootContainer(virtualFile, module);
       }
       catch (Exception e) {
         return null;
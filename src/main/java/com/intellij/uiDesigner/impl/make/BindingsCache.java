@@ -22,7 +22,9 @@
 package com.intellij.uiDesigner.impl.make;
 
 import com.intellij.uiDesigner.compiler.Utils;
-import com.intellij.uiDesigner.lw.LwRootContainer;
+import com.intellij.uiDesigner.core.UIFormXmlConstants;
+import com.intellij.uiDesigner.impl.binding.FormRootTagReader;
+import com.intellij.uiDesigner.impl.binding.FormTagScanner;
 import consulo.compiler.CompilerPaths;
 import consulo.document.Document;
 import consulo.document.FileDocumentManager;
@@ -33,12 +35,15 @@ import consulo.virtualFileSystem.VirtualFile;
 import consulo.virtualFileSystem.util.VirtualFileUtil;
 
 import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
 
 final class BindingsCache
 {
 	private static final Logger LOG = Logger.getInstance(BindingsCache.class);
 	private static final String BINDINGS_FILE_NAME = "formbinding.dat";
 	private BindingsStateCache<MyState> myCache;
+	private final Map<File, MyState> myPendingUpdates = new HashMap<>();
 
 	public BindingsCache(final Project project)
 	{
@@ -100,15 +105,32 @@ final class BindingsCache
 		String classToBind = getSavedBinding(file);
 		if(classToBind == null)
 		{
-			final Document doc = FileDocumentManager.getInstance().getDocument(formFile);
-			final LwRootContainer rootContainer = Utils.getRootContainer(doc.getText(), null);
-			classToBind = rootContainer.getClassToBind();
+			classToBind = readBoundClassName(formFile);
+			if(classToBind != null)
+			{
+				myPendingUpdates.put(file, new MyState(file.lastModified(), classToBind));
+			}
 		}
-		if(classToBind != null)
+		return classToBind;
+	}
+
+	/**
+	 * Reads only the root tag, the form model is not needed for the binding.
+	 */
+	private static String readBoundClassName(final VirtualFile formFile) throws Exception
+	{
+		// unsaved changes live only in the document, the file content is used otherwise
+		final Document document = FileDocumentManager.getInstance().getCachedDocument(formFile);
+		final CharSequence text = document != null && FileDocumentManager.getInstance().isDocumentUnsaved(document)
+				? document.getCharsSequence()
+				: new String(formFile.contentsToByteArray(), formFile.getCharset());
+		final FormTagScanner.Tag rootTag = FormRootTagReader.getRootTag(text);
+		if(rootTag == null)
 		{
-			updateCache(file, classToBind);
+			// rare, the full parser tells a form of another designer (AlienFormFileException) from broken text (parse error)
+			return Utils.getRootContainer(text.toString(), null).getClassToBind();
 		}
-		return classToBind;
+		return rootTag.getAttributeValue(UIFormXmlConstants.ATTRIBUTE_BIND_TO_CLASS);
 	}
 
 	private String getSavedBinding(final File formFile)
@@ -134,32 +156,49 @@ final class BindingsCache
 		return null;
 	}
 
-	private void updateCache(final File formFile, final String classToBind)
+	/**
+	 * Writes all bindings read during this session to the persistent cache at once.
+	 */
+	private void flushUpdates()
 	{
-		if(myCache != null)
+		if(myCache == null || myPendingUpdates.isEmpty())
+		{
+			return;
+		}
+		try
+		{
+			writeUpdates();
+		}
+		catch(IOException e)
 		{
-			final MyState state = new MyState(formFile.lastModified(), classToBind);
+			LOG.info(e);
+			myCache.wipe();
 			try
 			{
-				myCache.update(formFile, state);
+				writeUpdates();
 			}
-			catch(IOException e)
+			catch(IOException ignored)
 			{
-				LOG.info(e);
-				myCache.wipe();
-				try
-				{
-					myCache.update(formFile, state);
-				}
-				catch(IOException ignored)
-				{
-				}
 			}
 		}
+		myPendingUpdates.clear();
+	}
+
+	private void writeUpdates() throws IOException
+	{
+		for(Map.Entry<File, MyState> entry : myPendingUpdates.entrySet())
+		{
+			myCache.update(entry.getKey(), entry.getValue());
+		}
 	}
 
 	public void close()
 	{
+		if(myCache == null)
+		{
+			return;
+		}
+		flushUpdates();
 		try
 		{
 			myCache.close();
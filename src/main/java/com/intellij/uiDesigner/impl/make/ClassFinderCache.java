@@ -0,0 +1,294 @@
+package com.intellij.uiDesigner.impl.make;
+
+import com.intellij.compiler.instrumentation.InstrumentationClassFinder;
+import consulo.annotation.component.ComponentScope;
+import consulo.annotation.component.ServiceAPI;
+import consulo.annotation.component.ServiceImpl;
+import consulo.disposer.Disposable;
+import consulo.disposer.Disposer;
+import consulo.ide.ServiceManager;
+import consulo.logging.Logger;
+import consulo.project.Project;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * Keeps class finders over the JDK and library jars of modules of a project between compile sessions, so incremental makes do
+ * not reopen the same jars for every module on every build.
+ * <p>
+ * Only entries which do not change while compiling are shared: the platform classpath and classpath jars, keyed by their paths,
+ * sizes and timestamps. Output directories are rewritten by every build and stay in the per-module {@link ModuleClassFinder}, which
+ * is created for each session and looks them up before the shared libraries, as the real classpath does.
+ * <p>
+ * The cache is bounded by the total size of the jars it keeps open; least recently used finders which are not in use are released
+ * first. All finders are released when the project is closed, those in use as soon as their sessions finish.
+ */
+@Singleton
+@ServiceAPI(ComponentScope.PROJECT)
+@ServiceImpl
+public final class ClassFinderCache
+{
+	private static final Logger LOG = Logger.getInstance(ClassFinderCache.class);
+	private static final long MAX_OPEN_SIZE = 512L * 1024 * 1024;
+
+	private final LinkedHashMap<String, LibraryFinder> myFinders = new LinkedHashMap<>(16, 0.75f, true);
+	private long myOpenSize;
+	private boolean myDisposed;
+
+	@Nonnull
+	public static ClassFinderCache getInstance(@Nonnull Project project)
+	{
+		return ServiceManager.getService(project, ClassFinderCache.class);
+	}
+
+	@Inject
+	public ClassFinderCache(@Nonnull Project project)
+	{
+		Disposer.register(project, new Disposable()
+		{
+			@Override
+			public void dispose()
+			{
+				synchronized(ClassFinderCache.this)
+				{
+					myDisposed = true;
+					evictIfNeeded();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Creates a class finder for a module. The caller must call {@link InstrumentationClassFinder#releaseResources()} when done.
+	 */
+	@Nonnull
+	public InstrumentationClassFinder createClassFinder(@Nonnull URL[] platformUrls, @Nonnull URL[] classpathUrls)
+	{
+		final List<URL> directoryUrls = new ArrayList<>();
+		final List<URL> libraryUrls = new ArrayList<>();
+		for(URL url : classpathUrls)
+		{
+			final File file = toFile(url);
+			if(file != null && file.isDirectory())
+			{
+				directoryUrls.add(url);
+			}
+			else
+			{
+				libraryUrls.add(url);
+			}
+		}
+		final LibraryFinder libraries = acquire(platformUrls, libraryUrls.toArray(new URL[libraryUrls.size()]));
+		return new ModuleClassFinder(directoryUrls.toArray(new URL[directoryUrls.size()]), libraries);
+	}
+
+	@Nonnull
+	private synchronized LibraryFinder acquire(@Nonnull URL[] platformUrls, @Nonnull URL[] libraryUrls)
+	{
+		final String fingerprint = getFingerprint(platformUrls, libraryUrls);
+		LibraryFinder finder = myFinders.get(fingerprint);
+		if(finder == null)
+		{
+			finder = new LibraryFinder(new InstrumentationClassFinder(platformUrls, libraryUrls), getSize(platformUrls) + getSize(libraryUrls));
+			myFinders.put(fingerprint, finder);
+			myOpenSize += finder.mySize;
+		}
+		finder.myUsers++;
+		evictIfNeeded();
+		return finder;
+	}
+
+	private synchronized void release(@Nonnull LibraryFinder finder)
+	{
+		finder.myUsers--;
+		evictIfNeeded();
+	}
+
+	private void evictIfNeeded()
+	{
+		// once the project is closed nothing is kept, finders in use are released by their last session
+		final long maxOpenSize = myDisposed ? -1 : MAX_OPEN_SIZE;
+		for(Iterator<LibraryFinder> iterator = myFinders.values().iterator(); myOpenSize > maxOpenSize && iterator.hasNext(); )
+		{
+			final LibraryFinder finder = iterator.next();
+			if(finder.myUsers > 0)
+			{
+				continue;
+			}
+			iterator.remove();
+			myOpenSize -= finder.mySize;
+			finder.releaseResources();
+		}
+	}
+
+	private static long getSize(@Nonnull URL[] urls)
+	{
+		long size = 0;
+		for(URL url : urls)
+		{
+			final File file = toFile(url);
+			if(file != null)
+			{
+				size += file.length();
+			}
+		}
+		return size;
+	}
+
+	@Nonnull
+	private static String getFingerprint(@Nonnull URL[] platformUrls, @Nonnull URL[] libraryUrls)
+	{
+		final StringBuilder builder = new StringBuilder();
+		appendFingerprint(builder, platformUrls);
+		builder.append('|');
+		appendFingerprint(builder, libraryUrls);
+		return builder.toString();
+	}
+
+	private static void appendFingerprint(@Nonnull StringBuilder builder, @Nonnull URL[] urls)
+	{
+		for(URL url : urls)
+		{
+			builder.append(url.toExternalForm());
+			final File file = toFile(url);
+			if(file != null)
+			{
+				// a replaced jar gets a new finder, the old one ages out
+				builder.append(':').append(file.length()).append(':').append(file.lastModified());
+			}
+			builder.append(';');
+		}
+	}
+
+	@Nullable
+	private static File toFile(@Nonnull URL url)
+	{
+		if(!"file".equals(url.getProtocol()))
+		{
+			return null;
+		}
+		try
+		{
+			return new File(url.toURI());
+		}
+		catch(Exception e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Shared finder over platform and library jars. Used by concurrently instrumented modules, so every access is synchronized.
+	 */
+	private static final class LibraryFinder
+	{
+		private final InstrumentationClassFinder myFinder;
+		private final long mySize;
+		private int myUsers;
+
+		private LibraryFinder(@Nonnull InstrumentationClassFinder finder, long size)
+		{
+			myFinder = finder;
+			mySize = size;
+		}
+
+		@Nullable
+		public synchronized InputStream getResourceAsStream(@Nonnull String resourceName)
+		{
+			try
+			{
+				final InputStream stream = myFinder.getResourceAsStream(resourceName);
+				if(stream == null)
+				{
+					return null;
+				}
+				// read eagerly, the underlying jar must not be read outside of the lock
+				try
+				{
+					return new ByteArrayInputStream(stream.readAllBytes());
+				}
+				finally
+				{
+					stream.close();
+				}
+			}
+			catch(IOException e)
+			{
+				LOG.info(e);
+				return null;
+			}
+		}
+
+		private synchronized void releaseResources()
+		{
+			myFinder.releaseResources();
+		}
+	}
+
+	/**
+	 * Class finder of a single module for a single compile session: reads classes from the output directories itself and delegates
+	 * everything else to the shared library finder.
+	 */
+	private final class ModuleClassFinder extends InstrumentationClassFinder
+	{
+		private final File[] myDirectories;
+		private LibraryFinder myLibraries;
+
+		private ModuleClassFinder(@Nonnull URL[] directoryUrls, @Nonnull LibraryFinder libraries)
+		{
+			super(new URL[0], directoryUrls);
+			myDirectories = new File[directoryUrls.length];
+			for(int i = 0; i < directoryUrls.length; i++)
+			{
+				myDirectories[i] = toFile(directoryUrls[i]);
+			}
+			myLibraries = libraries;
+		}
+
+		@Override
+		protected InputStream lookupClassBeforeClasspath(String internalClassName)
+		{
+			final String resourceName = internalClassName + ".class";
+			for(File directory : myDirectories)
+			{
+				if(new File(directory, resourceName).isFile())
+				{
+					// output classes shadow library ones, let the directory classpath load it
+					return null;
+				}
+			}
+			return myLibraries == null ? null : myLibraries.getResourceAsStream(resourceName);
+		}
+
+		@Override
+		public InputStream getResourceAsStream(String name) throws IOException
+		{
+			final InputStream stream = super.getResourceAsStream(name);
+			if(stream != null || myLibraries == null)
+			{
+				return stream;
+			}
+			return myLibraries.getResourceAsStream(name);
+		}
+
+		@Override
+		public void releaseResources()
+		{
+			super.releaseResources();
+			if(myLibraries != null)
+			{
+				release(myLibraries);
+				myLibraries = null;
+			}
+		}
+	}
+}
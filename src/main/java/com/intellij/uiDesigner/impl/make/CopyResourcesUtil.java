@@ -22,10 +22,33 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class CopyResourcesUtil {
+  @NonNls private static final String[] RUNTIME_CLASSES = {
+    "AbstractLayout",
+    "DimensionInfo",
+    "GridConstraints",
+    "GridLayoutManager",
+    "HorizontalInfo",
+    "LayoutState",
+    "Spacer",
+    "SupportCode$TextWithMnemonic",
+    "SupportCode",
+    "Util",
+    "VerticalInfo",
+  };
+
+  /**
+   * Runtime class bytes keyed by class name, loaded from the plugin jar once: they cannot change while the IDE runs.
+   */
+  private static final Map<String, byte[]> ourRuntimeClassBytes = new ConcurrentHashMap<String, byte[]>();
+
   private CopyResourcesUtil() {
   }
 
@@ -77,25 +100,65 @@ public final class CopyResourcesUtil {
     copyStreamToFile(stream, file);
   }
 
+  /**
+   * Copies the forms runtime classes into <code>targetDir</code>. Classes which are already there with the same content are left untouched.
+   *
+   * @return the files which were actually written
+   */
   public static List<File> copyFormsRuntime(final String targetDir, final boolean deleteOnExit) throws IOException {
-    String[] runtimeClasses = {
-      "AbstractLayout",
-      "DimensionInfo",
-      "GridConstraints",
-      "GridLayoutManager",
-      "HorizontalInfo",
-      "LayoutState",
-      "Spacer",
-      "SupportCode$TextWithMnemonic",
-      "SupportCode",
-      "Util",
-      "VerticalInfo",
-    };
-
+    final File targetRoot = new File(targetDir).getAbsoluteFile();
     List<File> copied = new ArrayList<File>();
-    for (String runtimeClass : runtimeClasses) {
-      copied.add(copyClass(targetDir, "com/intellij/uiDesigner/core/" + runtimeClass, deleteOnExit));
+    for (String runtimeClass : RUNTIME_CLASSES) {
+      final String className = "com/intellij/uiDesigner/core/" + runtimeClass;
+      final byte[] bytes = getRuntimeClassBytes(className);
+      final File file = new File(targetRoot, className + ".class");
+      if (deleteOnExit) {
+        FileUtil.createParentDirs(file);
+        for (File f = file; f != null && !FileUtil.filesEqual(f, targetRoot); f = FileUtil.getParentFile(f)) {
+          f.deleteOnExit();
+        }
+      }
+      else if (isUpToDate(file, bytes)) {
+        continue;
+      }
+      else {
+        FileUtil.createParentDirs(file);
+      }
+      Files.write(file.toPath(), bytes);
+      copied.add(file);
     }
     return copied;
   }
+
+  private static byte[] getRuntimeClassBytes(final String className) throws IOException {
+    byte[] bytes = ourRuntimeClassBytes.get(className);
+    if (bytes == null) {
+      @NonNls final String resourceName = "/" + className + ".class";
+      final InputStream stream = CopyResourcesUtil.class.getResourceAsStream(resourceName);
+      if (stream == null) {
+        throw new IOException("cannot load " + resourceName);
+      }
+      try {
+        bytes = stream.readAllBytes();
+      }
+      finally {
+        stream.close();
+      }
+      ourRuntimeClassBytes.put(className, bytes);
+    }
+    return bytes;
+  }
+
+  private static boolean isUpToDate(final File file, final byte[] bytes) {
+    // the size check rejects most stale copies without reading them
+    if (file.length() != bytes.length || !file.isFile()) {
+      return false;
+    }
+    try {
+      return Arrays.equals(bytes, Files.readAllBytes(file.toPath()));
+    }
+    catch (IOException e) {
+      return false;
+    }
+  }
 }
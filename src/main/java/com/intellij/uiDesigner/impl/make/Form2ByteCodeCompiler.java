@@ -32,6 +32,7 @@ import com.intellij.uiDesigner.lw.CompiledClassPropertiesProvider;
 import com.intellij.uiDesigner.lw.LwRootContainer;
 import consulo.annotation.component.ExtensionImpl;
 import consulo.application.ApplicationManager;
+import consulo.application.dumb.IndexNotReadyException;
 import consulo.application.util.function.Computable;
 import consulo.compiler.*;
 import consulo.compiler.scope.CompileScope;
@@ -46,6 +47,8 @@ import consulo.java.language.module.extension.JavaModuleExtension;
 import consulo.language.content.ProductionContentFolderTypeProvider;
 import consulo.language.content.TestContentFolderTypeProvider;
 import consulo.language.psi.PsiFile;
+import consulo.language.psi.scope.GlobalSearchScope;
+import consulo.language.psi.search.FileTypeIndex;
 import consulo.language.util.ModuleUtilCore;
 import consulo.logging.Logger;
 import consulo.module.Module;
@@ -53,8 +56,6 @@ import consulo.module.content.DirectoryIndex;
 import consulo.project.Project;
 import consulo.util.collection.ArrayUtil;
 import consulo.util.collection.Chunk;
-import consulo.util.io.FilePermissionCopier;
-import consulo.util.io.FileUtil;
 import consulo.util.lang.ExceptionUtil;
 import consulo.virtualFileSystem.VirtualFile;
 import consulo.virtualFileSystem.util.VirtualFileUtil;
@@ -67,6 +68,7 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.Callable;
 
 @ExtensionImpl
 public final class Form2ByteCodeCompiler implements ClassInstrumentingCompiler
@@ -110,11 +112,25 @@ public final class Form2ByteCodeCompiler implements ClassInstrumentingCompiler
 	public static InstrumentationClassFinder createClassFinder(@Nonnull CompileContext context, @Nonnull final Module module)
 	{
 		ModuleChunk moduleChunk = new ModuleChunk((CompileContextEx) context, new Chunk<>(module), Collections.<Module, List<VirtualFile>>emptyMap());
+		return new InstrumentationClassFinder(getPlatformUrls(context, moduleChunk, module), toUrls(JavaCompilerUtil.getCompilationClasspath(context, moduleChunk)));
+	}
 
-		Set<VirtualFile> compilationBootClasspath = JavaCompilerUtil.getCompilationBootClasspath(context, moduleChunk);
-		Set<VirtualFile> compilationClasspath = JavaCompilerUtil.getCompilationClasspath(context, moduleChunk);
+	/**
+	 * Same as {@link #createClassFinder(CompileContext, Module)}, but the JDK and library jars are shared with previous compile sessions
+	 * through {@link ClassFinderCache}.
+	 */
+	@Nonnull
+	private static InstrumentationClassFinder createCachedClassFinder(@Nonnull CompileContext context, @Nonnull final Module module)
+	{
+		ModuleChunk moduleChunk = new ModuleChunk((CompileContextEx) context, new Chunk<>(module), Collections.<Module, List<VirtualFile>>emptyMap());
+		return ClassFinderCache.getInstance(context.getProject()).createClassFinder(getPlatformUrls(context, moduleChunk, module),
+				toUrls(JavaCompilerUtil.getCompilationClasspath(context, moduleChunk)));
+	}
 
-		URL[] platformUrls = toUrls(compilationBootClasspath);
+	@Nonnull
+	private static URL[] getPlatformUrls(@Nonnull CompileContext context, @Nonnull ModuleChunk moduleChunk, @Nonnull Module module)
+	{
+		URL[] platformUrls = toUrls(JavaCompilerUtil.getCompilationBootClasspath(context, moduleChunk));
 
 		Sdk sdk = ModuleUtilCore.getSdk(module, JavaModuleExtension.class);
 		if(sdk != null && JavaSdkVersionUtil.getJavaSdkVersion(sdk).isAtLeast(JavaSdkVersion.JDK_1_9))
@@ -127,7 +143,7 @@ public final class Form2ByteCodeCompiler implements ClassInstrumentingCompiler
 			{
 			}
 		}
-		return new InstrumentationClassFinder(platformUrls, toUrls(compilationClasspath));
+		return platformUrls;
 	}
 
 	@Nonnull
@@ -167,25 +183,23 @@ public final class Form2ByteCodeCompiler implements ClassInstrumentingCompiler
 			public void run()
 			{
 				final CompileScope scope = context.getCompileScope();
-				final CompileScope projectScope = CompilerManager.getInstance(project).createProjectCompileScope();
 
-				final VirtualFile[] formFiles = projectScope.getFiles(GuiFormFileType.INSTANCE);
-				if(formFiles.length == 0)
+				final Map<Module, List<VirtualFile>> module2formFiles = findFormFiles(context);
+				if(module2formFiles.isEmpty())
 				{
 					return;
 				}
 				final CompilerManager compilerManager = CompilerManager.getInstance(project);
+				final NestedFormDependencies nestedFormDependencies = NestedFormDependencies.collect(project, module2formFiles);
 				final BindingsCache bindingsCache = new BindingsCache(project);
 
-				final HashMap<Module, ArrayList<VirtualFile>> module2formFiles = sortByModules(project, formFiles);
-
 				try
 				{
 					for(final consulo.module.Module module : module2formFiles.keySet())
 					{
 						final HashMap<String, VirtualFile> class2form = new HashMap<>();
 
-						final ArrayList<VirtualFile> list = module2formFiles.get(module);
+						final List<VirtualFile> list = module2formFiles.get(module);
 						for(final VirtualFile formFile : list)
 						{
 							if(compilerManager.isExcludedFromCompilation(formFile))
@@ -236,7 +250,7 @@ public final class Form2ByteCodeCompiler implements ClassInstrumentingCompiler
 							}
 							class2form.put(classToBind, formFile);
 
-							final ProcessingItem item = new MyInstrumentationItem(classFile, formFile, classToBind);
+							final ProcessingItem item = new MyInstrumentationItem(classFile, formFile, classToBind, nestedFormDependencies.getNestedForms(formFile));
 							items.add(item);
 						}
 					}
@@ -262,15 +276,45 @@ public final class Form2ByteCodeCompiler implements ClassInstrumentingCompiler
 		return sourceFile != null && compileScope.belongs(sourceFile.getUrl());
 	}
 
-	private static HashMap<Module, ArrayList<VirtualFile>> sortByModules(final Project project, final VirtualFile[] formFiles)
+	/**
+	 * Finds form files which can affect the compile scope of the context, grouped by module. Only forms of the modules affected
+	 * by the scope are enumerated, so making a single module does not walk the forms of the whole project. The bound class of
+	 * a form is looked up in the output of the form's module, so forms of other modules cannot be instrumented by this build anyway.
+	 */
+	@Nonnull
+	static Map<Module, List<VirtualFile>> findFormFiles(@Nonnull final CompileContext context)
 	{
-		final HashMap<consulo.module.Module, ArrayList<VirtualFile>> module2formFiles = new HashMap<>();
+		final Project project = context.getProject();
+		final Map<Module, List<VirtualFile>> module2formFiles = new LinkedHashMap<>();
+		try
+		{
+			for(Module module : context.getCompileScope().getAffectedModules())
+			{
+				final Collection<VirtualFile> formFiles = FileTypeIndex.getFiles(GuiFormFileType.INSTANCE, GlobalSearchScope.moduleScope(module));
+				if(!formFiles.isEmpty())
+				{
+					module2formFiles.put(module, new ArrayList<>(formFiles));
+				}
+			}
+		}
+		catch(IndexNotReadyException e)
+		{
+			final CompileScope projectScope = CompilerManager.getInstance(project).createProjectCompileScope();
+			module2formFiles.clear();
+			module2formFiles.putAll(sortByModules(project, projectScope.getFiles(GuiFormFileType.INSTANCE)));
+		}
+		return module2formFiles;
+	}
+
+	private static HashMap<Module, List<VirtualFile>> sortByModules(final Project project, final VirtualFile[] formFiles)
+	{
+		final HashMap<consulo.module.Module, List<VirtualFile>> module2formFiles = new HashMap<>();
 		for(final VirtualFile formFile : formFiles)
 		{
 			final consulo.module.Module module = ModuleUtilCore.findModuleForFile(formFile, project);
 			if(module != null)
 			{
-				ArrayList<VirtualFile> list = module2formFiles.get(module);
+				List<VirtualFile> list = module2formFiles.get(module);
 				if(list == null)
 				{
 					list = new ArrayList<>();
@@ -371,144 +415,168 @@ public final class Form2ByteCodeCompiler implements ClassInstrumentingCompiler
 	@Override
 	public ProcessingItem[] process(final CompileContext context, final ProcessingItem[] items)
 	{
-		final DirectoryIndex directoryIndex = DirectoryIndex.getInstance(context.getProject());
-		final List<ProcessingItem> compiledItems = new ArrayList<>();
-
 		context.getProgressIndicator().pushState();
 		context.getProgressIndicator().setText(UIDesignerBundle.message("progress.compiling.ui.forms"));
 
 		final Project project = context.getProject();
+		final GuiDesignerConfiguration designerConfiguration = GuiDesignerConfiguration.getInstance(project);
 		final HashMap<consulo.module.Module, ArrayList<MyInstrumentationItem>> module2itemsList = sortByModules(project, items);
 
-		List<File> filesToRefresh = new ArrayList<>();
-		for(final consulo.module.Module module : module2itemsList.keySet())
+		// modules are always processed and reported in name order, so the build output does not depend on the thread count
+		final List<Module> modules = new ArrayList<>(module2itemsList.keySet());
+		modules.sort(Comparator.comparing(Module::getName));
+
+		final List<Callable<ModuleInstrumentationResult>> tasks = new ArrayList<>(modules.size());
+		for(final Module module : modules)
 		{
-			final InstrumentationClassFinder finder = createClassFinder(context, module);
+			tasks.add(() -> instrumentModule(context, designerConfiguration, module, module2itemsList.get(module)));
+		}
+		final List<ModuleInstrumentationResult> results = FormCompilerTasks.invokeAll(context, designerConfiguration, tasks);
 
-			try
+		final List<ProcessingItem> compiledItems = new ArrayList<>();
+		final List<File> filesToRefresh = new ArrayList<>();
+		for(ModuleInstrumentationResult result : results)
+		{
+			result.flush(context, compiledItems, filesToRefresh);
+		}
+		CompilerUtil.refreshIOFiles(filesToRefresh);
+		context.getProgressIndicator().popState();
+
+		return compiledItems.toArray(new ProcessingItem[compiledItems.size()]);
+	}
+
+	/**
+	 * Instruments all forms of a single module. The class finder is created once per module and is only touched by the thread
+	 * running this method, so modules can be instrumented concurrently. Messages are collected into the result instead of being
+	 * reported directly, the caller merges them into the compile context.
+	 */
+	private static ModuleInstrumentationResult instrumentModule(final CompileContext context,
+																final GuiDesignerConfiguration designerConfiguration,
+																final Module module,
+																final List<MyInstrumentationItem> list)
+	{
+		final ModuleInstrumentationResult result = new ModuleInstrumentationResult();
+		final DirectoryIndex directoryIndex = DirectoryIndex.getInstance(context.getProject());
+		final InstrumentationClassFinder finder = createCachedClassFinder(context, module);
+		final FormOutputCopier formCopier = new FormOutputCopier();
+
+		try
+		{
+			if(designerConfiguration.COPY_FORMS_RUNTIME_TO_OUTPUT)
 			{
-				GuiDesignerConfiguration designerConfiguration = GuiDesignerConfiguration.getInstance(project);
-				if(designerConfiguration.COPY_FORMS_RUNTIME_TO_OUTPUT)
+				final String moduleOutputPath = CompilerPaths.getModuleOutputPath(module, ProductionContentFolderTypeProvider.getInstance());
+				try
 				{
-					final String moduleOutputPath = CompilerPaths.getModuleOutputPath(module, ProductionContentFolderTypeProvider.getInstance());
-					try
+					if(moduleOutputPath != null)
 					{
-						if(moduleOutputPath != null)
-						{
-							filesToRefresh.addAll(CopyResourcesUtil.copyFormsRuntime(moduleOutputPath, false));
-						}
-						final String testsOutputPath = CompilerPaths.getModuleOutputPath(module, TestContentFolderTypeProvider.getInstance());
-						if(testsOutputPath != null && !testsOutputPath.equals(moduleOutputPath))
-						{
-							filesToRefresh.addAll(CopyResourcesUtil.copyFormsRuntime(testsOutputPath, false));
-						}
+						result.myFilesToRefresh.addAll(CopyResourcesUtil.copyFormsRuntime(moduleOutputPath, false));
 					}
-					catch(IOException e)
+					final String testsOutputPath = CompilerPaths.getModuleOutputPath(module, TestContentFolderTypeProvider.getInstance());
+					if(testsOutputPath != null && !testsOutputPath.equals(moduleOutputPath))
 					{
-						addMessage(context, UIDesignerBundle.message("error.cannot.copy.gui.designer.form.runtime", module.getName(), ExceptionUtil.getThrowableText(e)), null,
-								CompilerMessageCategory.ERROR);
+						result.myFilesToRefresh.addAll(CopyResourcesUtil.copyFormsRuntime(testsOutputPath, false));
 					}
 				}
-
-				final ArrayList<MyInstrumentationItem> list = module2itemsList.get(module);
-
-				for(final MyInstrumentationItem item : list)
+				catch(IOException e)
 				{
-					//context.getProgressIndicator().setFraction((double)++formsProcessed / (double)items.length);
+					result.addMessage(UIDesignerBundle.message("error.cannot.copy.gui.designer.form.runtime", module.getName(), ExceptionUtil.getThrowableText(e)), null,
+							CompilerMessageCategory.ERROR);
+				}
+			}
 
-					final VirtualFile formFile = item.getFormFile();
-					context.getProgressIndicator().setText2(formFile.getPresentableUrl());
+			for(final MyInstrumentationItem item : list)
+			{
+				context.getProgressIndicator().checkCanceled();
+
+				final VirtualFile formFile = item.getFormFile();
+				context.getProgressIndicator().setText2(formFile.getPresentableUrl());
 
-					final String text = ApplicationManager.getApplication().runReadAction(new Computable<String>()
+				final String text = ApplicationManager.getApplication().runReadAction(new Computable<String>()
+				{
+					@Override
+					public String compute()
 					{
-						@Override
-						public String compute()
+						if(!belongsToCompileScope(context, formFile, item.getClassToBindFQname()))
 						{
-							if(!belongsToCompileScope(context, formFile, item.getClassToBindFQname()))
-							{
-								return null;
-							}
-							Document document = FileDocumentManager.getInstance().getDocument(formFile);
-							return document == null ? null : document.getText();
+							return null;
 						}
-					});
-					if(text == null)
-					{
-						continue; // does not belong to current scope
+						Document document = FileDocumentManager.getInstance().getDocument(formFile);
+						return document == null ? null : document.getText();
 					}
+				});
+				if(text == null)
+				{
+					continue; // does not belong to current scope
+				}
 
-					final LwRootContainer rootContainer;
-					try
-					{
-						rootContainer = Utils.getRootContainer(text, new CompiledClassPropertiesProvider(finder.getLoader()));
-					}
-					catch(Exception e)
-					{
-						addMessage(context, UIDesignerBundle.message("error.cannot.process.form.file", ExceptionUtil.getThrowableText(e)), formFile, CompilerMessageCategory.ERROR);
-						continue;
-					}
+				final LwRootContainer rootContainer;
+				try
+				{
+					rootContainer = Utils.getRootContainer(text, new CompiledClassPropertiesProvider(finder.getLoader()));
+				}
+				catch(Exception e)
+				{
+					result.addMessage(UIDesignerBundle.message("error.cannot.process.form.file", ExceptionUtil.getThrowableText(e)), formFile, CompilerMessageCategory.ERROR);
+					continue;
+				}
 
-					if(designerConfiguration.COPY_FORMS_TO_OUTPUT)
+				if(designerConfiguration.COPY_FORMS_TO_OUTPUT)
+				{
+					VirtualFile outputForFile = context.getOutputForFile(module, formFile);
+					if(outputForFile != null)
 					{
-						VirtualFile outputForFile = context.getOutputForFile(module, formFile);
-						if(outputForFile != null)
-						{
-							String packageName = directoryIndex.getPackageName(formFile.getParent());
+						String packageName = directoryIndex.getPackageName(formFile.getParent());
 
-							File outputFormFile;
-							if(packageName == null || packageName.isEmpty())
-							{
-								outputFormFile = new File(outputForFile.getPath(), formFile.getName());
-							}
-							else
-							{
-								outputFormFile = new File(outputForFile.getPath(), packageName.replace(".", "/") + "/" + formFile.getName());
-							}
+						File outputFormFile;
+						if(packageName == null || packageName.isEmpty())
+						{
+							outputFormFile = new File(outputForFile.getPath(), formFile.getName());
+						}
+						else
+						{
+							outputFormFile = new File(outputForFile.getPath(), packageName.replace(".", "/") + "/" + formFile.getName());
+						}
 
-							FileUtil.createParentDirs(outputFormFile);
-							try
-							{
-								FileUtil.copy(new File(formFile.getPath()), outputFormFile, FilePermissionCopier.BY_NIO2);
-							}
-							catch(IOException e)
-							{
-								addMessage(context, UIDesignerBundle.message("error.cannot.process.form.file", ExceptionUtil.getThrowableText(e)), formFile, CompilerMessageCategory.ERROR);
-								continue;
-							}
+						try
+						{
+							formCopier.copy(new File(formFile.getPath()), outputFormFile);
+						}
+						catch(IOException e)
+						{
+							result.addMessage(UIDesignerBundle.message("error.cannot.process.form.file", ExceptionUtil.getThrowableText(e)), formFile, CompilerMessageCategory.ERROR);
+							continue;
 						}
 					}
+				}
 
-					final File classFile = item.getFile();
-					LOG.assertTrue(classFile.exists(), classFile.getPath());
+				final File classFile = item.getFile();
+				LOG.assertTrue(classFile.exists(), classFile.getPath());
 
-					final AsmCodeGenerator codeGenerator = new AsmCodeGenerator(rootContainer, finder, new PsiNestedFormLoader(module), false, new InstrumenterClassWriter(isJdk6(module) ?
-							ClassWriter.COMPUTE_FRAMES : ClassWriter.COMPUTE_MAXS, finder), designerConfiguration.USE_JB_SCALING);
-					ApplicationManager.getApplication().runReadAction(() -> codeGenerator.patchFile(classFile));
-					final FormErrorInfo[] errors = codeGenerator.getErrors();
-					final FormErrorInfo[] warnings = codeGenerator.getWarnings();
-					for(FormErrorInfo warning : warnings)
-					{
-						addMessage(context, warning, formFile, CompilerMessageCategory.WARNING);
-					}
-					for(FormErrorInfo error : errors)
-					{
-						addMessage(context, error, formFile, CompilerMessageCategory.ERROR);
-					}
-					if(errors.length == 0)
-					{
-						compiledItems.add(item);
-					}
+				final AsmCodeGenerator codeGenerator = new AsmCodeGenerator(rootContainer, finder, new PsiNestedFormLoader(module), false, new InstrumenterClassWriter(isJdk6(module) ?
+						ClassWriter.COMPUTE_FRAMES : ClassWriter.COMPUTE_MAXS, finder), designerConfiguration.USE_JB_SCALING);
+				ApplicationManager.getApplication().runReadAction(() -> codeGenerator.patchFile(classFile));
+				final FormErrorInfo[] errors = codeGenerator.getErrors();
+				final FormErrorInfo[] warnings = codeGenerator.getWarnings();
+				for(FormErrorInfo warning : warnings)
+				{
+					result.addMessage(warning, formFile, CompilerMessageCategory.WARNING);
+				}
+				for(FormErrorInfo error : errors)
+				{
+					result.addMessage(error, formFile, CompilerMessageCategory.ERROR);
+				}
+				if(errors.length == 0)
+				{
+					item.classFilePatched();
+					result.myCompiledItems.add(item);
 				}
-			}
-			finally
-			{
-				finder.releaseResources();
 			}
 		}
-		CompilerUtil.refreshIOFiles(filesToRefresh);
-		context.getProgressIndicator().popState();
-
-		return compiledItems.toArray(new ProcessingItem[compiledItems.size()]);
+		finally
+		{
+			finder.releaseResources();
+		}
+		return result;
 	}
 
 	private static boolean isJdk6(final Module module)
@@ -538,7 +606,7 @@ public final class Form2ByteCodeCompiler implements ClassInstrumentingCompiler
 	@Override
 	public ValidityState createValidityState(final DataInput in) throws IOException
 	{
-		return TimestampValidityState.load(in);
+		return FormContentValidityState.load(in);
 	}
 
 	public static VirtualFile findSourceFile(final CompileContext context, final VirtualFile formFile, final String className)
@@ -563,19 +631,60 @@ public final class Form2ByteCodeCompiler implements ClassInstrumentingCompiler
 		return containingFile.getVirtualFile();
 	}
 
+	private static final class ModuleInstrumentationResult
+	{
+		private final List<ProcessingItem> myCompiledItems = new ArrayList<>();
+		private final List<File> myFilesToRefresh = new ArrayList<>();
+		private final List<Message> myMessageList = new ArrayList<>();
+
+		private void addMessage(final String s, final VirtualFile formFile, final CompilerMessageCategory severity)
+		{
+			addMessage(new FormErrorInfo(null, s), formFile, severity);
+		}
+
+		private void addMessage(final FormErrorInfo e, final VirtualFile formFile, final CompilerMessageCategory severity)
+		{
+			myMessageList.add(new Message(e, formFile, severity));
+		}
+
+		private void flush(final CompileContext context, final List<ProcessingItem> compiledItems, final List<File> filesToRefresh)
+		{
+			for(Message message : myMessageList)
+			{
+				Form2ByteCodeCompiler.addMessage(context, message.myError, message.myFormFile, message.mySeverity);
+			}
+			compiledItems.addAll(myCompiledItems);
+			filesToRefresh.addAll(myFilesToRefresh);
+		}
+	}
+
+	private static final class Message
+	{
+		private final FormErrorInfo myError;
+		private final VirtualFile myFormFile;
+		private final CompilerMessageCategory mySeverity;
+
+		private Message(final FormErrorInfo error, final VirtualFile formFile, final CompilerMessageCategory severity)
+		{
+			myError = error;
+			myFormFile = formFile;
+			mySeverity = severity;
+		}
+	}
+
 	private static final class MyInstrumentationItem implements ProcessingItem
 	{
 		private final File myClassFile;
 		private final VirtualFile myFormFile;
 		private final String myClassToBindFQname;
-		private final TimestampValidityState myState;
+		private FormContentValidityState myState;
 
-		private MyInstrumentationItem(final File classFile, final VirtualFile formFile, final String classToBindFQname)
+		private MyInstrumentationItem(final File classFile, final VirtualFile formFile, final String classToBindFQname, @Nullable final List<VirtualFile> nestedForms)
 		{
 			myClassFile = classFile;
 			myFormFile = formFile;
 			myClassToBindFQname = classToBindFQname;
-			myState = new TimestampValidityState(formFile.getTimeStamp());
+			myState = FormContentValidityState.create(formFile, classFile, nestedForms);
 		}
 
 		@Override
@@ -600,6 +709,14 @@ public final class Form2ByteCodeCompiler implements ClassInstrumentingCompiler
 		{
 			return myState;
 		}
+
+		/**
+		 * Remembers the patched class file, so the next build sees the item as up to date unless the class is recompiled.
+		 */
+		private void classFilePatched()
+		{
+			myState = myState.withBoundFile(myClassFile);
+		}
 	}
 
 }
@@ -15,13 +15,14 @@
  */
 package com.intellij.uiDesigner.impl.make;
 
+import com.intellij.java.language.psi.PsiClass;
 import com.intellij.uiDesigner.compiler.AlienFormFileException;
 import com.intellij.uiDesigner.compiler.FormErrorInfo;
 import com.intellij.uiDesigner.impl.GuiDesignerConfiguration;
-import com.intellij.uiDesigner.impl.GuiFormFileType;
 import com.intellij.uiDesigner.impl.UIDesignerBundle;
 import consulo.annotation.component.ExtensionImpl;
 import consulo.application.ApplicationManager;
+import consulo.application.ReadAction;
 import consulo.compiler.*;
 import consulo.compiler.scope.CompileScope;
 import consulo.compiler.util.CompilerUtil;
@@ -36,6 +37,7 @@ import consulo.virtualFileSystem.VirtualFile;
 import consulo.virtualFileSystem.util.VirtualFileUtil;
 
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import java.io.DataInput;
 import java.io.File;
 import java.io.IOException;
@@ -43,10 +45,18 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @ExtensionImpl
 public final class Form2SourceCompiler implements SourceInstrumentingCompiler
 {
+	/**
+	 * Number of forms written into their bound classes under a single write action
+	 */
+	private static final int APPLY_BATCH_SIZE = 25;
+
 	@Override
 	@Nonnull
 	public String getDescription()
@@ -78,73 +88,80 @@ public final class Form2SourceCompiler implements SourceInstrumentingCompiler
 			public void run()
 			{
 				final CompileScope scope = context.getCompileScope();
-				final CompileScope projectScope = CompilerManager.getInstance(project).createProjectCompileScope();
 
-				final VirtualFile[] formFiles = projectScope.getFiles(GuiFormFileType.INSTANCE);
+				final Map<Module, List<VirtualFile>> module2formFiles = Form2ByteCodeCompiler.findFormFiles(context);
+				if(module2formFiles.isEmpty())
+				{
+					return;
+				}
 				final CompilerManager compilerManager = CompilerManager.getInstance(project);
+				final NestedFormDependencies nestedFormDependencies = NestedFormDependencies.collect(project, module2formFiles);
 				final BindingsCache bindingsCache = new BindingsCache(project);
 
 				try
 				{
 					final HashMap<String, VirtualFile> class2form = new HashMap<String, VirtualFile>();
 
-					for(final VirtualFile formFile : formFiles)
+					for(final List<VirtualFile> formFiles : module2formFiles.values())
 					{
-						if(compilerManager.isExcludedFromCompilation(formFile))
+						for(final VirtualFile formFile : formFiles)
 						{
-							continue;
-						}
+							if(compilerManager.isExcludedFromCompilation(formFile))
+							{
+								continue;
+							}
 
-						final String classToBind;
-						try
-						{
-							classToBind = bindingsCache.getBoundClassName(formFile);
-						}
-						catch(AlienFormFileException e)
-						{
-							// ignore non-IDEA forms
-							continue;
-						}
-						catch(Exception e)
-						{
-							addError(context, new FormErrorInfo(null, UIDesignerBundle.message("error.cannot.process.form.file", e)), formFile);
-							continue;
-						}
+							final String classToBind;
+							try
+							{
+								classToBind = bindingsCache.getBoundClassName(formFile);
+							}
+							catch(AlienFormFileException e)
+							{
+								// ignore non-IDEA forms
+								continue;
+							}
+							catch(Exception e)
+							{
+								addError(context, new FormErrorInfo(null, UIDesignerBundle.message("error.cannot.process.form.file", e)), formFile);
+								continue;
+							}
 
-						if(classToBind == null)
-						{
-							continue;
-						}
+							if(classToBind == null)
+							{
+								continue;
+							}
 
-						final VirtualFile sourceFile = Form2ByteCodeCompiler.findSourceFile(context, formFile, classToBind);
-						if(sourceFile == null)
-						{
-							if(scope.belongs(formFile.getUrl()))
+							final VirtualFile sourceFile = Form2ByteCodeCompiler.findSourceFile(context, formFile, classToBind);
+							if(sourceFile == null)
 							{
-								addError(context, new FormErrorInfo(null, UIDesignerBundle.message("error.class.to.bind.does.not.exist", classToBind)), formFile);
+								if(scope.belongs(formFile.getUrl()))
+								{
+									addError(context, new FormErrorInfo(null, UIDesignerBundle.message("error.class.to.bind.does.not.exist", classToBind)), formFile);
+								}
+								continue;
 							}
-							continue;
-						}
 
-						final boolean inScope = scope.belongs(sourceFile.getUrl()) || scope.belongs(formFile.getUrl());
+							final boolean inScope = scope.belongs(sourceFile.getUrl()) || scope.belongs(formFile.getUrl());
 
-						final VirtualFile alreadyProcessedForm = class2form.get(classToBind);
-						if(alreadyProcessedForm != null)
-						{
-							if(inScope)
+							final VirtualFile alreadyProcessedForm = class2form.get(classToBind);
+							if(alreadyProcessedForm != null)
 							{
-								addError(context, new FormErrorInfo(null, UIDesignerBundle.message("error.duplicate.bind", classToBind, alreadyProcessedForm.getPresentableUrl())), formFile);
+								if(inScope)
+								{
+									addError(context, new FormErrorInfo(null, UIDesignerBundle.message("error.duplicate.bind", classToBind, alreadyProcessedForm.getPresentableUrl())), formFile);
+								}
+								continue;
 							}
-							continue;
-						}
-						class2form.put(classToBind, formFile);
+							class2form.put(classToBind, formFile);
 
-						if(!inScope)
-						{
-							continue;
-						}
+							if(!inScope)
+							{
+								continue;
+							}
 
-						items.add(new MyInstrumentationItem(sourceFile, formFile));
+							items.add(new MyInstrumentationItem(sourceFile, formFile, nestedFormDependencies.getNestedForms(formFile)));
+						}
 					}
 				}
 				finally
@@ -164,50 +181,31 @@ public final class Form2SourceCompiler implements SourceInstrumentingCompiler
 
 		context.getProgressIndicator().setText(UIDesignerBundle.message("progress.compiling.ui.forms"));
 
-		int formsProcessed = 0;
-
 		final Project project = context.getProject();
 		final FormSourceCodeGenerator generator = new FormSourceCodeGenerator(project);
+		final byte[] codeStyleFingerprint = FormSourceCodeGenerator.getCodeStyleFingerprint(project);
 
 		final HashSet<consulo.module.Module> processedModules = new HashSet<Module>();
 
 		final List<File> filesToRefresh = new ArrayList<File>();
+
+		// setup code of all forms is prepared in background and in parallel, the EDT is only used to write it into the bound classes in batches
+		ApplicationManager.getApplication().invokeAndWait(() -> PsiDocumentManager.getInstance(project).commitAllDocuments(),
+				ApplicationManager.getApplication().getNoneModalityState());
+
+		final List<MyInstrumentationItem> preparedItems = new ArrayList<MyInstrumentationItem>();
+		final List<FormSourceCodeGenerator.PreparedForm> preparedForms = new ArrayList<FormSourceCodeGenerator.PreparedForm>();
+		final List<Callable<PrepareResult>> prepareTasks = new ArrayList<Callable<PrepareResult>>(items.length);
+		// preparation takes the first half of the progress, writing the code into the bound classes the second one
+		final AtomicInteger formsPrepared = new AtomicInteger();
 		for(ProcessingItem item1 : items)
 		{
-			context.getProgressIndicator().setFraction((double) (++formsProcessed) / ((double) items.length));
+			context.getProgressIndicator().checkCanceled();
 
 			final MyInstrumentationItem item = (MyInstrumentationItem) item1;
 
 			final VirtualFile formFile = item.getFormFile();
 
-      /*if(GuiDesignerConfiguration.getInstance(project).COPY_FORMS_TO_OUTPUT) {
-		VirtualFile outputForFile = context.getOutputForFile(module, formFile);
-        if (outputForFile != null) {
-          String packageName = directoryIndex.getPackageName(formFile.getParent());
-
-          File outputFormFile = null;
-          if (packageName == null || packageName.isEmpty()) {
-            outputFormFile = new File(outputForFile.getPath(), formFile.getName());
-          }
-          else {
-            outputFormFile = new File(outputForFile.getPath(), packageName.replace(".", "/") + "/" + formFile.getName());
-          }
-
-          FileUtil.createParentDirs(outputFormFile);
-          try {
-            FileUtil.copy(new File(formFile.getPath()), outputFormFile);
-          }
-          catch (IOException e) {
-            addError(
-              context,
-              new FormErrorInfo(null, UIDesignerBundle.message("error.cannot.copy.gui.designer.form.runtime",
-                                                               module.getName(), ExceptionUtil.getThrowableText(e))),
-              null
-            );
-          }
-        }
-      }   */
-
 			if(GuiDesignerConfiguration.getInstance(project).COPY_FORMS_RUNTIME_TO_OUTPUT)
 			{
 				ApplicationManager.getApplication().runReadAction(new Runnable()
@@ -246,46 +244,136 @@ public final class Form2SourceCompiler implements SourceInstrumentingCompiler
 				});
 			}
 
-			ApplicationManager.getApplication().invokeAndWait(new Runnable()
+			prepareTasks.add(() ->
+			{
+				context.getProgressIndicator().checkCanceled();
+				context.getProgressIndicator().setText2(formFile.getPresentableUrl());
+				// generator instances are not thread-safe, every form gets its own one
+				final FormSourceCodeGenerator formGenerator = new FormSourceCodeGenerator(project);
+				final PrepareResult result = ReadAction.compute(() ->
+				{
+					final FormSourceCodeGenerator.PreparedForm preparedForm = formGenerator.prepare(formFile);
+					final byte[] fingerprint = preparedForm != null ? preparedForm.getFingerprint(codeStyleFingerprint) : null;
+					return new PrepareResult(preparedForm, fingerprint, new ArrayList<>(formGenerator.getErrors()));
+				});
+				context.getProgressIndicator().setFraction((double) formsPrepared.incrementAndGet() / (2.0 * items.length));
+				return result;
+			});
+		}
+
+		final List<PrepareResult> prepareResults = FormCompilerTasks.invokeAll(context, GuiDesignerConfiguration.getInstance(project), prepareTasks);
+		final SetupCodeFingerprintCache fingerprints = new SetupCodeFingerprintCache(project);
+		try
+		{
+			collectPreparedForms(context, items, prepareResults, fingerprints, compiledItems, preparedItems, preparedForms);
+			applyPreparedForms(context, generator, fingerprints, codeStyleFingerprint, preparedItems, preparedForms, compiledItems);
+		}
+		finally
+		{
+			fingerprints.close();
+		}
+
+		for(ProcessingItem item : compiledItems)
+		{
+			((MyInstrumentationItem) item).sourceFileGenerated();
+		}
+
+		CompilerUtil.refreshIOFiles(filesToRefresh);
+		return compiledItems.toArray(new ProcessingItem[compiledItems.size()]);
+	}
+
+	private static void collectPreparedForms(final CompileContext context,
+											 final ProcessingItem[] items,
+											 final List<PrepareResult> prepareResults,
+											 final SetupCodeFingerprintCache fingerprints,
+											 final List<ProcessingItem> compiledItems,
+											 final List<MyInstrumentationItem> preparedItems,
+											 final List<FormSourceCodeGenerator.PreparedForm> preparedForms)
+	{
+		for(int i = 0; i < items.length; i++)
+		{
+			final MyInstrumentationItem item = (MyInstrumentationItem) items[i];
+			final PrepareResult result = prepareResults.get(i);
+			if(result.myPreparedForm != null)
+			{
+				if(fingerprints.isUpToDate(item.getFormFile(), result.myFingerprint))
+				{
+					// the class already contains exactly this setup code
+					compiledItems.add(item);
+				}
+				else
+				{
+					preparedItems.add(item);
+					preparedForms.add(result.myPreparedForm);
+				}
+			}
+			else if(result.myErrors.isEmpty())
+			{
+				// nothing to generate for this form
+				compiledItems.add(item);
+			}
+			else
+			{
+				for(final FormErrorInfo e : result.myErrors)
+				{
+					addError(context, e, item.getFormFile());
+				}
+			}
+		}
+	}
+
+	private static void applyPreparedForms(final CompileContext context,
+										   final FormSourceCodeGenerator generator,
+										   final SetupCodeFingerprintCache fingerprints,
+										   final byte[] codeStyleFingerprint,
+										   final List<MyInstrumentationItem> preparedItems,
+										   final List<FormSourceCodeGenerator.PreparedForm> preparedForms,
+										   final List<ProcessingItem> compiledItems)
+	{
+		final Project project = context.getProject();
+		for(int batchStart = 0; batchStart < preparedForms.size(); batchStart += APPLY_BATCH_SIZE)
+		{
+			final int start = batchStart;
+			final int end = Math.min(batchStart + APPLY_BATCH_SIZE, preparedForms.size());
+			context.getProgressIndicator().checkCanceled();
+			ApplicationManager.getApplication().invokeAndWait(() -> CommandProcessor.getInstance().executeCommand(project, () -> ApplicationManager.getApplication().runWriteAction(() ->
 			{
-				@Override
-				public void run()
+				PsiDocumentManager.getInstance(project).commitAllDocuments();
+				for(int i = start; i < end; i++)
 				{
-					CommandProcessor.getInstance().executeCommand(project, new Runnable()
+					final MyInstrumentationItem item = preparedItems.get(i);
+					final FormSourceCodeGenerator.PreparedForm preparedForm = preparedForms.get(i);
+					context.getProgressIndicator().setText2(item.getFormFile().getPresentableUrl());
+					context.getProgressIndicator().setFraction(0.5 + (double) (i + 1) / (2.0 * preparedForms.size()));
+					final PsiClass boundClass = generator.apply(preparedForm);
+					final ArrayList<FormErrorInfo> errors = generator.getErrors();
+					if(errors.size() == 0)
 					{
-						@Override
-						public void run()
+						compiledItems.add(item);
+						// the form may have been prepared again while applying, its fingerprint is the one to record
+						final FormSourceCodeGenerator.PreparedForm appliedForm = generator.getAppliedForm();
+						if(boundClass != null && appliedForm != null)
 						{
-							ApplicationManager.getApplication().runWriteAction(new Runnable()
-							{
-								@Override
-								public void run()
-								{
-									PsiDocumentManager.getInstance(project).commitAllDocuments();
-									generator.generate(formFile);
-									final ArrayList<FormErrorInfo> errors = generator.getErrors();
-									if(errors.size() == 0)
-									{
-										compiledItems.add(item);
-									}
-									else
-									{
-										for(final FormErrorInfo e : errors)
-										{
-											addError(context, e, formFile);
-										}
-									}
-								}
-							});
+							fingerprints.update(item.getFormFile(), appliedForm.getFingerprint(boundClass, codeStyleFingerprint));
 						}
-					}, "", null);
-					FileDocumentManager.getInstance().saveAllDocuments();
+					}
+					else
+					{
+						for(final FormErrorInfo e : errors)
+						{
+							addError(context, e, item.getFormFile());
+						}
+					}
 				}
-			}, ApplicationManager.getApplication().getNoneModalityState());
+			}), "", null), ApplicationManager.getApplication().getNoneModalityState());
 		}
 
-		CompilerUtil.refreshIOFiles(filesToRefresh);
-		return compiledItems.toArray(new ProcessingItem[compiledItems.size()]);
+		if(!preparedForms.isEmpty())
+		{
+			ApplicationManager.getApplication().invokeAndWait(() -> FileDocumentManager.getInstance().saveAllDocuments(),
+					ApplicationManager.getApplication().getNoneModalityState());
+		}
+		context.getProgressIndicator().setFraction(1.0);
 	}
 
 	private static void addError(final CompileContext context, final FormErrorInfo e, final VirtualFile formFile)
@@ -306,7 +394,23 @@ public final class Form2SourceCompiler implements SourceInstrumentingCompiler
 	@Override
 	public ValidityState createValidityState(final DataInput in) throws IOException
 	{
-		return TimestampValidityState.load(in);
+		return FormContentValidityState.load(in);
+	}
+
+	private static final class PrepareResult
+	{
+		@Nullable
+		private final FormSourceCodeGenerator.PreparedForm myPreparedForm;
+		@Nullable
+		private final byte[] myFingerprint;
+		private final List<FormErrorInfo> myErrors;
+
+		private PrepareResult(@Nullable final FormSourceCodeGenerator.PreparedForm preparedForm, @Nullable final byte[] fingerprint, final List<FormErrorInfo> errors)
+		{
+			myPreparedForm = preparedForm;
+			myFingerprint = fingerprint;
+			myErrors = errors;
+		}
 	}
 
 	private static final class MyInstrumentationItem implements ProcessingItem
@@ -314,13 +418,13 @@ public final class Form2SourceCompiler implements SourceInstrumentingCompiler
 		@Nonnull
 		private final VirtualFile mySourceFile;
 		private final VirtualFile myFormFile;
-		private final TimestampValidityState myState;
+		private FormContentValidityState myState;
 
-		public MyInstrumentationItem(@Nonnull final VirtualFile sourceFile, final VirtualFile formFile)
+		public MyInstrumentationItem(@Nonnull final VirtualFile sourceFile, final VirtualFile formFile, @Nullable final List<VirtualFile> nestedForms)
 		{
 			mySourceFile = sourceFile;
 			myFormFile = formFile;
-			myState = new TimestampValidityState(formFile.getTimeStamp());
+			myState = FormContentValidityState.create(formFile, getFile(), nestedForms);
 		}
 
 		@Override
@@ -340,6 +444,14 @@ public final class Form2SourceCompiler implements SourceInstrumentingCompiler
 		{
 			return myState;
 		}
+
+		/**
+		 * Remembers the source file with the generated code, so the next build sees the item as up to date unless the source changes.
+		 */
+		public void sourceFileGenerated()
+		{
+			myState = myState.withBoundFile(getFile());
+		}
 	}
 
 }
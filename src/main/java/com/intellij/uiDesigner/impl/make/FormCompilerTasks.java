@@ -0,0 +1,137 @@
+package com.intellij.uiDesigner.impl.make;
+
+import com.intellij.uiDesigner.impl.GuiDesignerConfiguration;
+import consulo.application.Application;
+import consulo.application.progress.ProgressIndicator;
+import consulo.compiler.CompileContext;
+import consulo.component.ProcessCanceledException;
+
+import jakarta.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs independent tasks of the form compilers on pooled application threads, at most
+ * {@link GuiDesignerConfiguration#INSTRUMENTATION_THREADS} of them and never more than there are processors. Results are always
+ * returned in task order. Cancelling the compilation stops the workers before their next task.
+ */
+final class FormCompilerTasks
+{
+	private static final long CANCEL_CHECK_INTERVAL_MS = 100;
+
+	private FormCompilerTasks()
+	{
+	}
+
+	@Nonnull
+	@SuppressWarnings("unchecked")
+	public static <T> List<T> invokeAll(@Nonnull CompileContext context, @Nonnull GuiDesignerConfiguration configuration, @Nonnull List<Callable<T>> tasks)
+	{
+		final ProgressIndicator indicator = context.getProgressIndicator();
+		final int threadCount = getThreadCount(configuration, tasks.size());
+		if(threadCount <= 1)
+		{
+			final List<T> results = new ArrayList<>(tasks.size());
+			for(Callable<T> task : tasks)
+			{
+				indicator.checkCanceled();
+				results.add(call(task));
+			}
+			return results;
+		}
+
+		final Object[] results = new Object[tasks.size()];
+		final AtomicInteger nextTask = new AtomicInteger();
+		final List<Future<?>> workers = new ArrayList<>(threadCount);
+		try
+		{
+			for(int i = 0; i < threadCount; i++)
+			{
+				workers.add(Application.get().executeOnPooledThread(() ->
+				{
+					for(int index = nextTask.getAndIncrement(); index < results.length && !indicator.isCanceled(); index = nextTask.getAndIncrement())
+					{
+						results[index] = tasks.get(index).call();
+					}
+					return null;
+				}));
+			}
+			for(Future<?> worker : workers)
+			{
+				await(worker, indicator);
+			}
+		}
+		finally
+		{
+			// a failed or cancelled compilation must not leave workers picking up new tasks
+			nextTask.set(results.length);
+		}
+		indicator.checkCanceled();
+		return (List<T>) Arrays.asList(results);
+	}
+
+	private static int getThreadCount(final GuiDesignerConfiguration configuration, final int taskCount)
+	{
+		final int processors = Runtime.getRuntime().availableProcessors();
+		int threads = configuration.INSTRUMENTATION_THREADS;
+		if(threads <= 0 || threads > processors)
+		{
+			threads = processors;
+		}
+		return Math.min(threads, taskCount);
+	}
+
+	private static <T> T call(final Callable<T> task)
+	{
+		try
+		{
+			return task.call();
+		}
+		catch(RuntimeException e)
+		{
+			throw e;
+		}
+		catch(Exception e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static void await(final Future<?> future, final ProgressIndicator indicator)
+	{
+		while(true)
+		{
+			indicator.checkCanceled();
+			try
+			{
+				future.get(CANCEL_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+				return;
+			}
+			catch(TimeoutException e)
+			{
+				// check for cancellation again
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new ProcessCanceledException();
+			}
+			catch(ExecutionException e)
+			{
+				final Throwable cause = e.getCause();
+				if(cause instanceof RuntimeException)
+				{
+					throw (RuntimeException) cause;
+				}
+				if(cause instanceof Error)
+				{
+					throw (Error) cause;
+				}
+				throw new RuntimeException(cause);
+			}
+		}
+	}
+}
@@ -0,0 +1,284 @@
+package com.intellij.uiDesigner.impl.make;
+
+import consulo.compiler.ValidityState;
+import consulo.logging.Logger;
+import consulo.virtualFileSystem.VirtualFile;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Validity state of a form processing item, based on the content of the form and of the file the form is bound to
+ * (class file for instrumentation, source file for source generation). Unlike {@link consulo.compiler.TimestampValidityState}
+ * it survives branch switches which only touch timestamps.
+ * <p>
+ * Each file is read and hashed only if its timestamp or length differs from the saved state, so a build where nothing was touched
+ * does not read the files at all.
+ * <p>
+ * The bound file is hashed before processing, and rehashed with {@link #withBoundFile(File)} once the compiler has patched it,
+ * so the next build compares against the file it actually left on disk.
+ * <p>
+ * Nested forms embedded by the form, directly or transitively, are hashed too, so a change of a nested form invalidates
+ * the forms embedding it.
+ */
+final class FormContentValidityState implements ValidityState
+{
+	private static final Logger LOG = Logger.getInstance(FormContentValidityState.class);
+	private static final int FORMAT_VERSION = 1;
+	private static final byte[] NO_HASH = new byte[0];
+
+	private final Part myForm;
+	private final Part myBoundFile;
+	private final Part myNestedForms;
+
+	private FormContentValidityState(@Nonnull Part form, @Nonnull Part boundFile, @Nonnull Part nestedForms)
+	{
+		myForm = form;
+		myBoundFile = boundFile;
+		myNestedForms = nestedForms;
+	}
+
+	/**
+	 * @param nestedForms nested forms of the form, see {@link NestedFormDependencies#getNestedForms(VirtualFile)};
+	 *                    null if they are not known, then the form is always treated as changed
+	 */
+	@Nonnull
+	public static FormContentValidityState create(@Nonnull VirtualFile formFile, @Nonnull File boundFile, @Nullable List<VirtualFile> nestedForms)
+	{
+		final Part form = new Part(() -> stamp(formFile.getTimeStamp(), formFile.getLength()), () ->
+		{
+			try
+			{
+				return hash(formFile.contentsToByteArray());
+			}
+			catch(IOException e)
+			{
+				LOG.info(e);
+				return NO_HASH;
+			}
+		});
+		return new FormContentValidityState(form, createPart(boundFile), createPart(nestedForms));
+	}
+
+	@Nonnull
+	public FormContentValidityState withBoundFile(@Nonnull File boundFile)
+	{
+		return new FormContentValidityState(myForm, createPart(boundFile), myNestedForms);
+	}
+
+	@Nonnull
+	public static FormContentValidityState load(@Nonnull DataInput in) throws IOException
+	{
+		final int version = in.readUnsignedByte();
+		if(version != FORMAT_VERSION)
+		{
+			throw new IOException("Unsupported form validity state version " + version);
+		}
+		return new FormContentValidityState(Part.load(in), Part.load(in), Part.load(in));
+	}
+
+	@Override
+	public boolean equalsTo(ValidityState otherState)
+	{
+		if(!(otherState instanceof FormContentValidityState))
+		{
+			return false;
+		}
+		FormContentValidityState other = (FormContentValidityState) otherState;
+		return myForm.equalsTo(other.myForm) &&
+				myBoundFile.equalsTo(other.myBoundFile) &&
+				myNestedForms.equalsTo(other.myNestedForms);
+	}
+
+	@Override
+	public void save(DataOutput out) throws IOException
+	{
+		out.writeByte(FORMAT_VERSION);
+		myForm.save(out);
+		myBoundFile.save(out);
+		myNestedForms.save(out);
+	}
+
+	@Nonnull
+	private static Part createPart(@Nonnull File file)
+	{
+		if(!file.isFile())
+		{
+			return new Part(NO_HASH, NO_HASH);
+		}
+		return new Part(() -> stamp(file.lastModified(), file.length()), () ->
+		{
+			try
+			{
+				return hash(Files.readAllBytes(file.toPath()));
+			}
+			catch(IOException e)
+			{
+				LOG.info(e);
+				return NO_HASH;
+			}
+		});
+	}
+
+	@Nonnull
+	private static Part createPart(@Nullable List<VirtualFile> nestedForms)
+	{
+		if(nestedForms == null)
+		{
+			return new Part(NO_HASH, NO_HASH);
+		}
+		return new Part(() ->
+		{
+			final MessageDigest digest = createDigest();
+			for(VirtualFile nestedForm : nestedForms)
+			{
+				digest.update(nestedForm.getPath().getBytes(StandardCharsets.UTF_8));
+				digest.update(stamp(nestedForm.getTimeStamp(), nestedForm.getLength()));
+			}
+			return digest.digest();
+		}, () ->
+		{
+			final MessageDigest digest = createDigest();
+			for(VirtualFile nestedForm : nestedForms)
+			{
+				try
+				{
+					digest.update(nestedForm.getPath().getBytes(StandardCharsets.UTF_8));
+					digest.update(nestedForm.contentsToByteArray());
+				}
+				catch(IOException e)
+				{
+					LOG.info(e);
+					return NO_HASH;
+				}
+			}
+			return digest.digest();
+		});
+	}
+
+	@Nonnull
+	private static byte[] stamp(long timeStamp, long length)
+	{
+		return ByteBuffer.allocate(2 * Long.BYTES).putLong(timeStamp).putLong(length).array();
+	}
+
+	@Nonnull
+	private static byte[] hash(@Nonnull byte[] content)
+	{
+		return createDigest().digest(content);
+	}
+
+	@Nonnull
+	private static MessageDigest createDigest()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-1");
+		}
+		catch(NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Nonnull
+	private static byte[] readBytes(@Nonnull DataInput in) throws IOException
+	{
+		byte[] bytes = new byte[in.readUnsignedByte()];
+		in.readFully(bytes);
+		return bytes;
+	}
+
+	private static void writeBytes(@Nonnull DataOutput out, @Nonnull byte[] bytes) throws IOException
+	{
+		out.writeByte(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Timestamp and content hash of a file or a group of files. The hash is computed on first use, and taken over from the saved
+	 * state when the timestamps match.
+	 */
+	private static final class Part
+	{
+		@Nullable
+		private Supplier<byte[]> myStamper;
+		@Nullable
+		private Supplier<byte[]> myHasher;
+		private byte[] myStamp;
+		private byte[] myHash;
+
+		private Part(@Nonnull Supplier<byte[]> stamper, @Nonnull Supplier<byte[]> hasher)
+		{
+			myStamper = stamper;
+			myHasher = hasher;
+			myStamp = stamper.get();
+		}
+
+		private Part(@Nonnull byte[] stamp, @Nonnull byte[] hash)
+		{
+			myStamp = stamp;
+			myHash = hash;
+		}
+
+		@Nonnull
+		private static Part load(@Nonnull DataInput in) throws IOException
+		{
+			return new Part(readBytes(in), readBytes(in));
+		}
+
+		@Nonnull
+		private byte[] getHash()
+		{
+			if(myHash == null)
+			{
+				myHash = myHasher.get();
+				// a file modified after its stamp was taken must not pass for the stamp's content next time
+				if(!Arrays.equals(myStamp, myStamper.get()))
+				{
+					myStamp = NO_HASH;
+				}
+				myHasher = null;
+				myStamper = null;
+			}
+			return myHash;
+		}
+
+		private boolean equalsTo(@Nonnull Part saved)
+		{
+			// a missing stamp means the file is not known, a missing hash that it could not be read: never treat them as unchanged
+			if(myStamp.length > 0 && Arrays.equals(myStamp, saved.myStamp) && saved.getHash().length > 0)
+			{
+				if(myHash == null)
+				{
+					myHash = saved.getHash();
+					myHasher = null;
+					myStamper = null;
+				}
+				return true;
+			}
+			final byte[] hash = getHash();
+			return hash.length > 0 && Arrays.equals(hash, saved.getHash());
+		}
+
+		private void save(@Nonnull DataOutput out) throws IOException
+		{
+			// hashing may drop a stamp which no longer matches the file
+			final byte[] hash = getHash();
+			writeBytes(out, myStamp);
+			writeBytes(out, hash);
+		}
+	}
+}
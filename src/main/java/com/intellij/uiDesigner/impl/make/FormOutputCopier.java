@@ -0,0 +1,63 @@
+package com.intellij.uiDesigner.impl.make;
+
+import jakarta.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Copies form files into an output folder when {@link com.intellij.uiDesigner.impl.GuiDesignerConfiguration#COPY_FORMS_TO_OUTPUT} is on.
+ * Targets which are already identical to the source are left untouched, and every package directory is created at most once.
+ * <p>
+ * One instance serves a single module and is not thread-safe.
+ */
+final class FormOutputCopier
+{
+	private final Set<File> myCreatedDirectories = new HashSet<>();
+
+	/**
+	 * @return true if the target was written, false if it was already up to date
+	 */
+	public boolean copy(@Nonnull File source, @Nonnull File target) throws IOException
+	{
+		if(isUpToDate(source, target))
+		{
+			return false;
+		}
+
+		final File directory = target.getParentFile();
+		if(directory != null && myCreatedDirectories.add(directory))
+		{
+			Files.createDirectories(directory.toPath());
+		}
+		// attributes are copied so the timestamp check matches on the next build
+		Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+		return true;
+	}
+
+	private static boolean isUpToDate(@Nonnull File source, @Nonnull File target) throws IOException
+	{
+		final long length = target.length();
+		if(length == 0L || length != source.length() || !target.isFile())
+		{
+			return false;
+		}
+		if(target.lastModified() == source.lastModified())
+		{
+			return true;
+		}
+		// same size but a different timestamp, e.g. after a checkout: compare contents before rewriting
+		final Path targetPath = target.toPath();
+		if(Arrays.equals(Files.readAllBytes(source.toPath()), Files.readAllBytes(targetPath)))
+		{
+			Files.setLastModifiedTime(targetPath, Files.getLastModifiedTime(source.toPath()));
+			return true;
+		}
+		return false;
+	}
+}
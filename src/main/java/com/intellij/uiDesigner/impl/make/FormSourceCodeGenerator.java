@@ -35,6 +35,7 @@ import consulo.document.FileDocumentManager;
 import consulo.language.ast.IElementType;
 import consulo.language.ast.TokenType;
 import consulo.language.codeStyle.CodeStyleManager;
+import consulo.language.codeStyle.CodeStyleSettingsManager;
 import consulo.language.pattern.ElementPattern;
 import consulo.language.pattern.PlatformPatterns;
 import consulo.language.psi.PsiElement;
@@ -52,28 +53,44 @@ import consulo.util.collection.primitive.ints.IntObjectMap;
 import consulo.util.collection.primitive.objects.ObjectIntMap;
 import consulo.util.collection.primitive.objects.ObjectMaps;
 import consulo.util.lang.StringUtil;
+import consulo.util.jdom.JDOMUtil;
 import consulo.util.lang.ref.SimpleReference;
 import consulo.virtualFileSystem.VirtualFile;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
+import org.jdom.Element;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 
+/**
+ * Generates the <code>$$$setupUI$$$</code> method of a form in two steps: {@link #prepare(VirtualFile)} builds the method text under
+ * a read action and {@link #apply(PreparedForm)} writes it into the bound class under a write action.
+ * <p>
+ * An instance keeps the state of the form being generated and must not be shared between threads. There is no shared mutable
+ * state between instances, so separate instances can prepare different forms concurrently.
+ */
 public final class FormSourceCodeGenerator {
     private static final Logger LOG = Logger.getInstance(FormSourceCodeGenerator.class);
 
-    private StringBuffer myBuffer;
+    private StringBuilder myBuffer;
     private Stack<Boolean> myIsFirstParameterStack;
     private final Project myProject;
     private final GuiDesignerConfiguration myConfiguration;
     private final ArrayList<FormErrorInfo> myErrors;
+    private PreparedForm myAppliedForm;
     private boolean myNeedLoadLabelText;
     private boolean myNeedLoadButtonText;
 
+    // stateless generators, never modified after class initialization
     private static final Map<Class, LayoutSourceGenerator> ourComponentLayoutCodeGenerators = new HashMap<>();
-    private static final Map<String, LayoutSourceGenerator> ourContainerLayoutCodeGenerators = new HashMap<>();
+    // some container generators remember what they already declared, so every form gets its own instances
+    private final Map<String, LayoutSourceGenerator> myContainerLayoutCodeGenerators = new HashMap<>();
     private static final IntObjectMap<String> ourFontStyleMap = IntMaps.newIntObjectHashMap();
     private static final IntObjectMap<String> ourTitleJustificationMap = IntMaps.newIntObjectHashMap();
     private static final IntObjectMap<String> ourTitlePositionMap = IntMaps.newIntObjectHashMap();
@@ -118,43 +135,56 @@ public final class FormSourceCodeGenerator {
 
     @RequiredWriteAction
     public void generate(VirtualFile formFile) {
+        PreparedForm preparedForm = prepare(formFile);
+        if (preparedForm != null) {
+            apply(preparedForm);
+        }
+    }
+
+    /**
+     * Builds the text of the setup method for the form. Only reads PSI, so it can run in background under a read action,
+     * the result is written into the bound class by {@link #apply(PreparedForm)}.
+     *
+     * @return prepared setup code or null if the form has nothing to generate or has errors (see {@link #getErrors()})
+     */
+    @Nullable
+    @RequiredReadAction
+    public PreparedForm prepare(VirtualFile formFile) {
         myNeedLoadLabelText = false;
         myNeedLoadButtonText = false;
+        myErrors.clear();
 
         consulo.module.Module module = ModuleUtilCore.findModuleForFile(formFile, myProject);
         if (module == null) {
-            return;
+            return null;
         }
 
         // ensure that new instances of generators are used for every run
-        ourContainerLayoutCodeGenerators.clear();
-        ourContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_INTELLIJ, new GridLayoutSourceGenerator());
-        ourContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_GRIDBAG, new GridBagLayoutSourceGenerator());
-        ourContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_BORDER, new BorderLayoutSourceGenerator());
-        ourContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_FLOW, new FlowLayoutSourceGenerator());
-        ourContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_CARD, new CardLayoutSourceGenerator());
-        ourContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_FORM, new FormLayoutSourceGenerator());
-        myErrors.clear();
+        myContainerLayoutCodeGenerators.clear();
+        myContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_INTELLIJ, new GridLayoutSourceGenerator());
+        myContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_GRIDBAG, new GridBagLayoutSourceGenerator());
+        myContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_BORDER, new BorderLayoutSourceGenerator());
+        myContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_FLOW, new FlowLayoutSourceGenerator());
+        myContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_CARD, new CardLayoutSourceGenerator());
+        myContainerLayoutCodeGenerators.put(UIFormXmlConstants.LAYOUT_FORM, new FormLayoutSourceGenerator());
 
-        PsiPropertiesProvider propertiesProvider = new PsiPropertiesProvider(module);
-
-        Document doc = FileDocumentManager.getInstance().getDocument(formFile);
         LwRootContainer rootContainer;
         try {
-            rootContainer = Utils.getRootContainer(doc.getText(), propertiesProvider);
+            // error analysis below stores errors in the model, so it must not be the shared cached one
+            rootContainer = FormModelCache.parseCopy(formFile, module);
         }
         catch (AlienFormFileException ignored) {
             // ignoring this file
-            return;
+            return null;
         }
         catch (Exception e) {
             myErrors.add(new FormErrorInfo(null, UIDesignerLocalize.errorCannotProcessFormFile(e).get()));
-            return;
+            return null;
         }
 
         if (rootContainer.getClassToBind() == null) {
             // form skipped - no class to bind
-            return;
+            return null;
         }
 
         ErrorAnalyzer.analyzeErrors(module, formFile, null, rootContainer, null);
@@ -177,11 +207,11 @@ public final class FormSourceCodeGenerator {
         );
 
         if (myErrors.size() != 0) {
-            return;
+            return null;
         }
 
         try {
-            _generate(rootContainer, module);
+            return _prepare(formFile, rootContainer, module);
         }
         catch (ClassToBindNotFoundException e) {
             // ignore
@@ -189,8 +219,35 @@ public final class FormSourceCodeGenerator {
         catch (CodeGenerationException e) {
             myErrors.add(new FormErrorInfo(e.getComponentId(), e.getMessage()));
         }
+        return null;
+    }
+
+    /**
+     * Writes the setup code prepared by {@link #prepare(VirtualFile)} into the bound class. If the bound class was reparsed
+     * since preparation, the form is prepared again, see {@link #getAppliedForm()}.
+     *
+     * @return the bound class after generation or null if nothing was generated
+     */
+    @Nullable
+    @RequiredWriteAction
+    public PsiClass apply(PreparedForm preparedForm) {
+        myErrors.clear();
+        myAppliedForm = null;
+        if (!preparedForm.myClassToBind.isValid()) {
+            preparedForm = prepare(preparedForm.myFormFile);
+            if (preparedForm == null) {
+                return null;
+            }
+        }
+
+        try {
+            PsiClass boundClass = _apply(preparedForm);
+            myAppliedForm = preparedForm;
+            return boundClass;
+        }
         catch (IncorrectOperationException e) {
             myErrors.add(new FormErrorInfo(null, e.getMessage()));
+            return null;
         }
     }
 
@@ -198,10 +255,19 @@ public final class FormSourceCodeGenerator {
         return myErrors;
     }
 
-    @RequiredWriteAction
-    private void _generate(LwRootContainer rootContainer, consulo.module.Module module)
-        throws CodeGenerationException, IncorrectOperationException {
-        myBuffer = new StringBuffer();
+    /**
+     * @return the form written by the last {@link #apply(PreparedForm)}, which differs from the passed one if the form
+     * was prepared again, or null if nothing was written
+     */
+    @Nullable
+    public PreparedForm getAppliedForm() {
+        return myAppliedForm;
+    }
+
+    @RequiredReadAction
+    private PreparedForm _prepare(VirtualFile formFile, LwRootContainer rootContainer, consulo.module.Module module)
+        throws CodeGenerationException {
+        myBuffer = new StringBuilder();
         myIsFirstParameterStack = new Stack<>();
 
         Map<LwComponent, String> component2variable = new HashMap<>();
@@ -234,7 +300,26 @@ public final class FormSourceCodeGenerator {
         generateComponentReferenceProperties(topComponent, component2variable, class2variableIndex, id2component, classToBind);
         generateButtonGroups(rootContainer, component2variable, class2variableIndex, id2component, classToBind);
 
-        String methodText = myBuffer.toString();
+        return new PreparedForm(
+            formFile,
+            module,
+            rootContainer,
+            classToBind,
+            myBuffer.toString(),
+            haveCustomCreateComponents,
+            myNeedLoadButtonText,
+            myNeedLoadLabelText
+        );
+    }
+
+    @RequiredWriteAction
+    private PsiClass _apply(PreparedForm preparedForm) throws IncorrectOperationException {
+        Module module = preparedForm.myModule;
+        LwRootContainer rootContainer = preparedForm.myRootContainer;
+        LwComponent topComponent = (LwComponent) rootContainer.getComponent(0);
+        PsiClass classToBind = preparedForm.myClassToBind;
+        String methodText = preparedForm.myMethodText;
+        boolean haveCustomCreateComponents = preparedForm.myHaveCustomCreateComponents;
 
         PsiManager psiManager = PsiManager.getInstance(module.getProject());
         PsiElementFactory elementFactory = JavaPsiFacade.getInstance(psiManager.getProject()).getElementFactory();
@@ -307,17 +392,24 @@ public final class FormSourceCodeGenerator {
             method,
             AsmCodeGenerator.LOAD_BUTTON_TEXT_METHOD,
             loadButtonTextMethodText,
-            myNeedLoadButtonText
+            preparedForm.myNeedLoadButtonText
         );
         String loadLabelTextMethodText = getLoadMethodText(AsmCodeGenerator.LOAD_LABEL_TEXT_METHOD, JLabel.class, module);
-        generateMethodIfRequired(newClass, method, AsmCodeGenerator.LOAD_LABEL_TEXT_METHOD, loadLabelTextMethodText, myNeedLoadLabelText);
+        generateMethodIfRequired(
+            newClass,
+            method,
+            AsmCodeGenerator.LOAD_LABEL_TEXT_METHOD,
+            loadLabelTextMethodText,
+            preparedForm.myNeedLoadLabelText
+        );
 
         newClass = (PsiClass) styler.shortenClassReferences(newClass);
         newClass = (PsiClass) formatter.reformat(newClass);
 
         if (!lexemsEqual(classToBind, newClass)) {
-            classToBind.replace(newClass);
+            return (PsiClass) classToBind.replace(newClass);
         }
+        return classToBind;
     }
 
     @RequiredWriteAction
@@ -992,7 +1084,7 @@ public final class FormSourceCodeGenerator {
         }
     }
 
-    private static LayoutSourceGenerator getComponentLayoutGenerator(LwContainer container) {
+    private LayoutSourceGenerator getComponentLayoutGenerator(LwContainer container) {
         LayoutSourceGenerator generator = ourComponentLayoutCodeGenerators.get(container.getClass());
         if (generator != null) {
             return generator;
@@ -1001,7 +1093,7 @@ public final class FormSourceCodeGenerator {
         while (parent != null) {
             String layoutManager = parent.getLayoutManager();
             if (layoutManager != null && layoutManager.length() > 0) {
-                generator = ourContainerLayoutCodeGenerators.get(layoutManager);
+                generator = myContainerLayoutCodeGenerators.get(layoutManager);
                 if (generator != null) {
                     return generator;
                 }
@@ -1355,4 +1447,169 @@ public final class FormSourceCodeGenerator {
             myIsFirstParameterStack.push(Boolean.FALSE);
         }
     }
+
+    /**
+     * Digest of the code style settings of the project, which shape the generated code when it is written into the bound class.
+     * Computed once per build and passed to {@link PreparedForm#getFingerprint(byte[])}.
+     */
+    @Nonnull
+    public static byte[] getCodeStyleFingerprint(@Nonnull Project project) {
+        MessageDigest digest = createDigest();
+        Element settings = new Element("settings");
+        try {
+            CodeStyleSettingsManager.getSettings(project).writeExternal(settings);
+            digest.update(JDOMUtil.writeElement(settings).getBytes(StandardCharsets.UTF_8));
+        }
+        catch (Exception e) {
+            // unknown settings never match, so the bound classes are regenerated
+            LOG.info(e);
+            digest.update(String.valueOf(System.nanoTime()).getBytes(StandardCharsets.UTF_8));
+        }
+        return digest.digest();
+    }
+
+    @Nonnull
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Setup code of a single form which is ready to be written into the bound class.
+     */
+    public static final class PreparedForm {
+        private final VirtualFile myFormFile;
+        private final Module myModule;
+        private final LwRootContainer myRootContainer;
+        private final PsiClass myClassToBind;
+        private final String myMethodText;
+        private final boolean myHaveCustomCreateComponents;
+        private final boolean myNeedLoadButtonText;
+        private final boolean myNeedLoadLabelText;
+
+        private PreparedForm(
+            VirtualFile formFile,
+            Module module,
+            LwRootContainer rootContainer,
+            PsiClass classToBind,
+            String methodText,
+            boolean haveCustomCreateComponents,
+            boolean needLoadButtonText,
+            boolean needLoadLabelText
+        ) {
+            myFormFile = formFile;
+            myModule = module;
+            myRootContainer = rootContainer;
+            myClassToBind = classToBind;
+            myMethodText = methodText;
+            myHaveCustomCreateComponents = haveCustomCreateComponents;
+            myNeedLoadButtonText = needLoadButtonText;
+            myNeedLoadLabelText = needLoadLabelText;
+        }
+
+        public VirtualFile getFormFile() {
+            return myFormFile;
+        }
+
+        /**
+         * @param codeStyleFingerprint see {@link #getCodeStyleFingerprint(Project)}
+         */
+        @Nonnull
+        @RequiredReadAction
+        public byte[] getFingerprint(@Nonnull byte[] codeStyleFingerprint) {
+            return getFingerprint(myClassToBind, codeStyleFingerprint);
+        }
+
+        /**
+         * Digest of everything the generated code depends on and of the generated code as it is now in the bound class: the form
+         * text, the prepared code, the code style settings, the signatures of the fields and methods of the bound class, and the
+         * text of its imports, constructors, initializers and generated methods. Constructors decide where the setup method is
+         * called, the generated members may have been edited, reverted or checked out since the last generation. Bodies of other
+         * methods are not included. If the digest matches the one taken right after the previous generation, applying this form
+         * would leave the class unchanged.
+         *
+         * @param codeStyleFingerprint see {@link #getCodeStyleFingerprint(Project)}
+         */
+        @Nonnull
+        @RequiredReadAction
+        public byte[] getFingerprint(@Nonnull PsiClass boundClass, @Nonnull byte[] codeStyleFingerprint) {
+            MessageDigest digest = createDigest();
+            digest.update(getFormText().getBytes(StandardCharsets.UTF_8));
+            digest.update(myMethodText.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) (myHaveCustomCreateComponents ? 1 : 0));
+            digest.update((byte) (myNeedLoadButtonText ? 1 : 0));
+            digest.update((byte) (myNeedLoadLabelText ? 1 : 0));
+            digest.update(codeStyleFingerprint);
+            StringBuilder members = new StringBuilder();
+            members.append(boundClass.getQualifiedName()).append('\n');
+            if (boundClass.getContainingFile() instanceof PsiJavaFile javaFile && javaFile.getImportList() != null) {
+                // shortened class references of the generated code are imported
+                members.append(javaFile.getImportList().getText()).append('\n');
+            }
+            for (PsiField field : boundClass.getFields()) {
+                appendModifiers(members, field.getModifierList());
+                members.append(field.getType().getCanonicalText()).append(' ').append(field.getName()).append(";\n");
+            }
+            for (PsiClassInitializer initializer : boundClass.getInitializers()) {
+                members.append(initializer.getText()).append('\n');
+            }
+            for (PsiMethod method : boundClass.getMethods()) {
+                if (method.isConstructor() || isGeneratedMethod(method)) {
+                    members.append(method.getText()).append('\n');
+                    continue;
+                }
+                appendModifiers(members, method.getModifierList());
+                PsiType returnType = method.getReturnType();
+                if (returnType != null) {
+                    members.append(returnType.getCanonicalText()).append(' ');
+                }
+                members.append(method.getName()).append('(');
+                for (PsiParameter parameter : method.getParameterList().getParameters()) {
+                    members.append(parameter.getType().getCanonicalText()).append(',');
+                }
+                members.append(");\n");
+            }
+            digest.update(members.toString().getBytes(StandardCharsets.UTF_8));
+            return digest.digest();
+        }
+
+        private static boolean isGeneratedMethod(@Nonnull PsiMethod method) {
+            String name = method.getName();
+            return AsmCodeGenerator.SETUP_METHOD_NAME.equals(name) ||
+                AsmCodeGenerator.GET_ROOT_COMPONENT_METHOD_NAME.equals(name) ||
+                AsmCodeGenerator.LOAD_BUTTON_TEXT_METHOD.equals(name) ||
+                AsmCodeGenerator.LOAD_LABEL_TEXT_METHOD.equals(name);
+        }
+
+        /**
+         * @return text of the form the setup code was prepared from, with line separators normalized as in documents
+         */
+        @Nonnull
+        @RequiredReadAction
+        private String getFormText() {
+            Document document = FileDocumentManager.getInstance().getCachedDocument(myFormFile);
+            if (document != null) {
+                return document.getText();
+            }
+            try {
+                return StringUtil.convertLineSeparators(new String(myFormFile.contentsToByteArray(), myFormFile.getCharset()));
+            }
+            catch (IOException e) {
+                // the prepared code still reflects the form
+                LOG.debug("Cannot read form " + myFormFile.getPath(), e);
+                return "";
+            }
+        }
+
+        private static void appendModifiers(@Nonnull StringBuilder builder, @Nullable PsiModifierList modifierList) {
+            if (modifierList != null) {
+                // annotations are part of the modifier list, the generator looks at some of them
+                builder.append(modifierList.getText()).append(' ');
+            }
+        }
+    }
 }
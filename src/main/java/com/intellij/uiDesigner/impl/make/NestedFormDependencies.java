@@ -0,0 +1,91 @@
+package com.intellij.uiDesigner.impl.make;
+
+import com.intellij.uiDesigner.impl.binding.FormComponentIndex;
+import consulo.language.psi.scope.GlobalSearchScope;
+import consulo.module.Module;
+import consulo.project.Project;
+import consulo.virtualFileSystem.VirtualFile;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Nested forms each form of a build depends on, directly or transitively. Built from {@link FormComponentIndex} by following every
+ * enumerated form up to the forms which embed it, so the validity state of an embedding form can include its nested forms and
+ * a change of a nested form reprocesses exactly the forms embedding it. Each form is looked up in the index at most once per build.
+ */
+final class NestedFormDependencies
+{
+	private final Map<VirtualFile, Set<VirtualFile>> myNestedForms;
+
+	private NestedFormDependencies(@Nullable Map<VirtualFile, Set<VirtualFile>> nestedForms)
+	{
+		myNestedForms = nestedForms;
+	}
+
+	/**
+	 * Must be called inside a read action.
+	 */
+	@Nonnull
+	static NestedFormDependencies collect(@Nonnull Project project, @Nonnull Map<Module, List<VirtualFile>> module2formFiles)
+	{
+		final GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
+		// forms directly embedding a form, shared by the searches of all forms of the build
+		final Map<VirtualFile, List<VirtualFile>> embeddingForms = new HashMap<>();
+		final Map<VirtualFile, Set<VirtualFile>> nestedForms = new HashMap<>();
+		for(List<VirtualFile> formFiles : module2formFiles.values())
+		{
+			for(VirtualFile formFile : formFiles)
+			{
+				final Set<VirtualFile> visited = new HashSet<>();
+				final Deque<VirtualFile> queue = new ArrayDeque<>();
+				queue.add(formFile);
+				while(!queue.isEmpty())
+				{
+					final VirtualFile file = queue.poll();
+					List<VirtualFile> embedding = embeddingForms.get(file);
+					if(embedding == null)
+					{
+						embedding = FormComponentIndex.findFormsEmbedding(project, file, scope);
+						if(embedding == null)
+						{
+							return new NestedFormDependencies(null);
+						}
+						embeddingForms.put(file, embedding);
+					}
+					for(VirtualFile embeddingForm : embedding)
+					{
+						// loops of nested forms are reported by the form compiler, here they only must not hang the search
+						if(!embeddingForm.equals(formFile) && visited.add(embeddingForm))
+						{
+							nestedForms.computeIfAbsent(embeddingForm, f -> new HashSet<>()).add(formFile);
+							queue.add(embeddingForm);
+						}
+					}
+				}
+			}
+		}
+		return new NestedFormDependencies(nestedForms);
+	}
+
+	/**
+	 * @return nested forms of the form sorted by path, or null if they are not known because indexes were not ready
+	 */
+	@Nullable
+	List<VirtualFile> getNestedForms(@Nonnull VirtualFile formFile)
+	{
+		if(myNestedForms == null)
+		{
+			return null;
+		}
+		final Set<VirtualFile> nestedForms = myNestedForms.get(formFile);
+		if(nestedForms == null)
+		{
+			return Collections.emptyList();
+		}
+		final List<VirtualFile> result = new ArrayList<>(nestedForms);
+		result.sort(Comparator.comparing(VirtualFile::getPath));
+		return result;
+	}
+}
@@ -22,6 +22,8 @@ import com.intellij.uiDesigner.impl.actions.PreviewFormAction;
 import com.intellij.uiDesigner.compiler.AsmCodeGenerator;
 import com.intellij.uiDesigner.compiler.CodeGenerationException;
 import com.intellij.uiDesigner.compiler.FormErrorInfo;
+import com.intellij.uiDesigner.compiler.Utils;
+import com.intellij.uiDesigner.impl.PsiPropertiesProvider;
 import com.intellij.uiDesigner.lw.LwRootContainer;
 import consulo.internal.org.objectweb.asm.ClassWriter;
 import consulo.internal.org.objectweb.asm.MethodVisitor;
@@ -34,8 +36,8 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * @author yole
@@ -43,7 +45,7 @@ import java.util.Set;
 public class PreviewNestedFormLoader extends PsiNestedFormLoader {
   private final String myTempPath;
   private final InstrumentationClassFinder myFinder;
-  private final Set<String> myGeneratedClasses = new HashSet<String>();
+  private final Map<String, LwRootContainer> myPreviewForms = new HashMap<String, LwRootContainer>();
 
   public PreviewNestedFormLoader(final Module module, final String tempPath, final InstrumentationClassFinder finder) {
     super(module);
@@ -52,10 +54,12 @@ public class PreviewNestedFormLoader extends PsiNestedFormLoader {
   }
 
   public LwRootContainer loadForm(String formFileName) throws Exception {
-    LwRootContainer rootContainer = super.loadForm(formFileName);
-    if (!myGeneratedClasses.contains(formFileName)) {
-      myGeneratedClasses.add(formFileName);
-      String generatedClassName = "FormPreviewFrame" + myGeneratedClasses.size();
+    LwRootContainer rootContainer = myPreviewForms.get(formFileName);
+    if (rootContainer == null) {
+      // preview bindings are set on the model, so it must be a private copy rather than the shared cached one
+      rootContainer = Utils.getRootContainer(findFormFile(formFileName).getInputStream(), new PsiPropertiesProvider(myModule));
+      myPreviewForms.put(formFileName, rootContainer);
+      String generatedClassName = "FormPreviewFrame" + myPreviewForms.size();
       PreviewFormAction.setPreviewBindings(rootContainer, generatedClassName);
       generateStubClass(rootContainer, generatedClassName);
     }
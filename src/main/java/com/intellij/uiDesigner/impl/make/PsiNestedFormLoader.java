@@ -19,40 +19,39 @@ package com.intellij.uiDesigner.impl.make;
 import com.intellij.java.language.psi.JavaPsiFacade;
 import com.intellij.java.language.psi.PsiClass;
 import com.intellij.java.language.psi.util.ClassUtil;
-import com.intellij.uiDesigner.impl.PsiPropertiesProvider;
+import com.intellij.uiDesigner.impl.FormModelCache;
 import com.intellij.uiDesigner.compiler.NestedFormLoader;
-import com.intellij.uiDesigner.compiler.Utils;
 import com.intellij.uiDesigner.lw.LwRootContainer;
 import consulo.ide.impl.idea.openapi.module.ResourceFileUtil;
 import consulo.language.psi.scope.GlobalSearchScope;
 import consulo.module.Module;
 import consulo.virtualFileSystem.VirtualFile;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
+ * Loads nested forms through the project {@link FormModelCache}, so a nested form is parsed once per modification for all
+ * loaders of a module, including loaders of parallel compilation threads. Loaded models are shared and must not be modified.
+ * <p>
+ * Nested forms are read from the saved file content, not from unsaved documents, so compiled forms embed what is on disk.
+ *
  * @author yole
  */
 public class PsiNestedFormLoader implements NestedFormLoader {
   protected consulo.module.Module myModule;
-  private final Map<String, LwRootContainer> myFormCache = new HashMap<String, LwRootContainer>();
 
   public PsiNestedFormLoader(final Module module) {
     myModule = module;
   }
 
   public LwRootContainer loadForm(String formFileName) throws Exception {
-    if (myFormCache.containsKey(formFileName)) {
-      return myFormCache.get(formFileName);
-    }
+    return FormModelCache.getInstance(myModule.getProject()).getSavedRootContainer(findFormFile(formFileName), myModule);
+  }
+
+  protected VirtualFile findFormFile(String formFileName) throws Exception {
     VirtualFile formFile = ResourceFileUtil.findResourceFileInDependents(myModule, formFileName);
     if (formFile == null) {
       throw new Exception("Could not find nested form file " + formFileName);
     }
-    final LwRootContainer container = Utils.getRootContainer(formFile.getInputStream(), new PsiPropertiesProvider(myModule));
-    myFormCache.put(formFileName, container);
-    return container;
+    return formFile;
   }
 
   public String getClassToBindName(LwRootContainer container) {
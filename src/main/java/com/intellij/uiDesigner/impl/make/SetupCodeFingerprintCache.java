@@ -0,0 +1,129 @@
+package com.intellij.uiDesigner.impl.make;
+
+import consulo.compiler.CompilerPaths;
+import consulo.index.io.PersistentHashMap;
+import consulo.logging.Logger;
+import consulo.project.Project;
+import consulo.util.io.FileUtil;
+import consulo.virtualFileSystem.VirtualFile;
+import consulo.virtualFileSystem.util.VirtualFileUtil;
+
+import jakarta.annotation.Nonnull;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Persists the fingerprint of the setup code generated for every form (see {@link FormSourceCodeGenerator.PreparedForm#getFingerprint(byte[])}),
+ * so the source compiler can skip copying and reformatting bound classes which would not change.
+ */
+final class SetupCodeFingerprintCache
+{
+	private static final Logger LOG = Logger.getInstance(SetupCodeFingerprintCache.class);
+	private static final String FINGERPRINTS_FILE_NAME = "formsetupcode.dat";
+
+	private BindingsStateCache<byte[]> myCache;
+
+	public SetupCodeFingerprintCache(@Nonnull Project project)
+	{
+		final File cacheStoreDirectory = CompilerPaths.getCacheStoreDirectory(project);
+		if(cacheStoreDirectory == null)
+		{
+			return;
+		}
+		final File storeFile = new File(cacheStoreDirectory, FINGERPRINTS_FILE_NAME);
+		try
+		{
+			FileUtil.createParentDirs(storeFile);
+			myCache = createCache(storeFile);
+		}
+		catch(IOException e)
+		{
+			LOG.info(e);
+			PersistentHashMap.deleteFilesStartingWith(storeFile);
+			try
+			{
+				myCache = createCache(storeFile);
+			}
+			catch(IOException e1)
+			{
+				LOG.info(e1);
+				myCache = null;
+			}
+		}
+	}
+
+	private static BindingsStateCache<byte[]> createCache(final File storeFile) throws IOException
+	{
+		return new BindingsStateCache<>(storeFile)
+		{
+			@Override
+			protected byte[] read(final DataInput stream) throws IOException
+			{
+				byte[] fingerprint = new byte[stream.readUnsignedByte()];
+				stream.readFully(fingerprint);
+				return fingerprint;
+			}
+
+			@Override
+			protected void write(final byte[] fingerprint, final DataOutput out) throws IOException
+			{
+				out.writeByte(fingerprint.length);
+				out.write(fingerprint);
+			}
+		};
+	}
+
+	public boolean isUpToDate(@Nonnull VirtualFile formFile, @Nonnull byte[] fingerprint)
+	{
+		if(myCache == null)
+		{
+			return false;
+		}
+		try
+		{
+			return Arrays.equals(fingerprint, myCache.getState(VirtualFileUtil.virtualToIoFile(formFile)));
+		}
+		catch(IOException e)
+		{
+			LOG.info(e);
+			myCache.wipe();
+			return false;
+		}
+	}
+
+	public void update(@Nonnull VirtualFile formFile, @Nonnull byte[] fingerprint)
+	{
+		if(myCache == null)
+		{
+			return;
+		}
+		try
+		{
+			myCache.update(VirtualFileUtil.virtualToIoFile(formFile), fingerprint);
+		}
+		catch(IOException e)
+		{
+			LOG.info(e);
+			myCache.wipe();
+		}
+	}
+
+	public void close()
+	{
+		if(myCache == null)
+		{
+			return;
+		}
+		try
+		{
+			myCache.close();
+		}
+		catch(IOException e)
+		{
+			LOG.info(e);
+		}
+	}
+}
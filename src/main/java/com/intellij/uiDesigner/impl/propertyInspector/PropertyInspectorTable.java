@@ -879,6 +879,16 @@ public final class PropertyInspectorTable extends JBTable implements DataProvide
         return true;
     }
 
+    /**
+     * @return true if setting the property changes only the elements of the selected components in the form. String and component
+     * properties may also update bindings of other components.
+     */
+    private static boolean isStoredInSelection(final Property property) {
+        return property instanceof IntrospectedProperty &&
+               !(property instanceof IntroStringProperty) &&
+               !(property instanceof IntroComponentProperty);
+    }
+
     private static boolean setPropValue(final Property property, final RadComponent c, final Object newValue) {
         try {
             //noinspection unchecked
@@ -968,7 +978,7 @@ public final class PropertyInspectorTable extends JBTable implements DataProvide
                     public void run() {
                         result.set(setSelectionValue(property, newValue));
 
-                        editor.refreshAndSave(false);
+                        editor.refreshAndSave(false, isStoredInSelection(property) ? new ArrayList<RadComponent>(mySelection) : Collections.<RadComponent>emptyList());
                     }
                 }, UIDesignerBundle.message("command.set.property.value"), null);
 
@@ -72,15 +72,17 @@ public class RadButtonGroup implements IButtonGroup {
     myBound = bound;
   }
 
-  public void add(final RadComponent component) {
+  // membership is changed only through RadRootContainer, which indexes groups by component id
+
+  void add(final RadComponent component) {
     myComponentIds.add(component.getId());
   }
 
-  public void remove(final RadComponent component) {
+  void remove(final RadComponent component) {
     myComponentIds.remove(component.getId());
   }
 
-  public void addComponentIds(final String[] componentIds) {
+  void addComponentIds(final String[] componentIds) {
     Collections.addAll(myComponentIds, componentIds);
   }
 
@@ -247,7 +247,12 @@ public abstract class RadComponent implements IComponent {
 
   public final void setBinding(final String binding) {
     //TODO[anton,vova]: check that binding is a valid java identifier!!!
+    final String oldBinding = myBinding;
     myBinding = binding;
+    final RadRootContainer root = findRootContainer();
+    if (root != null) {
+      root.bindingChanged(this, oldBinding, binding);
+    }
   }
 
   public boolean isCustomCreate() {
@@ -423,6 +428,18 @@ public abstract class RadComponent implements IComponent {
     myParent = parent;
   }
 
+  /**
+   * @return root container of the hierarchy the component belongs to, or null if the hierarchy is not attached to a root
+   */
+  @Nullable
+  final RadRootContainer findRootContainer() {
+    RadComponent component = this;
+    while (component.myParent != null) {
+      component = component.myParent;
+    }
+    return component instanceof RadRootContainer ? (RadRootContainer)component : null;
+  }
+
   public boolean isSelected() {
     return mySelected;
   }
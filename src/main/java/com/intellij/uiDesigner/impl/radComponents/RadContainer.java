@@ -231,6 +231,11 @@ public class RadContainer extends RadComponent implements IContainer {
     component.setParent(this);
     myLayoutManager.addComponentToContainer(this, component, index);
 
+    final RadRootContainer root = findRootContainer();
+    if (root != null) {
+      root.componentAttached(component);
+    }
+
     final RadComponent[] newChildren = myComponents.toArray(new RadComponent[myComponents.size()]);
     firePropertyChanged(PROP_CHILDREN, oldChildren, newChildren);
   }
@@ -266,6 +271,11 @@ public class RadContainer extends RadComponent implements IContainer {
     myComponents.remove(component);
     myLayoutManager.removeComponentFromContainer(this, component);
 
+    final RadRootContainer root = findRootContainer();
+    if (root != null) {
+      root.componentDetached(component);
+    }
+
     final RadComponent[] newChildren = myComponents.toArray(new RadComponent[myComponents.size()]);
     firePropertyChanged(PROP_CHILDREN, oldChildren, newChildren);
   }
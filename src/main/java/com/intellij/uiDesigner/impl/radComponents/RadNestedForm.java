@@ -30,6 +30,7 @@ import consulo.logging.Logger;
 import consulo.virtualFileSystem.VirtualFile;
 
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import javax.swing.*;
 import java.awt.*;
 
@@ -43,17 +44,30 @@ public class RadNestedForm extends RadComponent {
   private final RadRootContainer myRootContainer;
 
   public RadNestedForm(final ModuleProvider module, final String formFileName, final String id) throws Exception {
+    this(module, formFileName, id, null);
+  }
+
+  /**
+   * @param preparedModel model of the nested form prepared in advance, or null to load the form here
+   */
+  public RadNestedForm(final ModuleProvider module, final String formFileName, final String id, @Nullable final PreparedFormModel preparedModel)
+    throws Exception {
     super(module, JPanel.class, id);
     myFormFileName = formFileName;
-    LOG.debug("Loading nested form " + formFileName);
-    VirtualFile formFile = ResourceFileUtil.findResourceFileInDependents(getModule(), formFileName);
-    if (formFile == null) {
-      throw new IllegalArgumentException("Couldn't find virtual file for nested form " + formFileName);
+    if (preparedModel != null) {
+      myRootContainer = XmlReader.createRoot(module, preparedModel, null);
+    }
+    else {
+      LOG.debug("Loading nested form " + formFileName);
+      VirtualFile formFile = ResourceFileUtil.findResourceFileInDependents(getModule(), formFileName);
+      if (formFile == null) {
+        throw new IllegalArgumentException("Couldn't find virtual file for nested form " + formFileName);
+      }
+      Document doc = FileDocumentManager.getInstance().getDocument(formFile);
+      final ClassLoader classLoader = LoaderFactory.getInstance(getProject()).getLoader(formFile);
+      final LwRootContainer rootContainer = Utils.getRootContainer(doc.getText(), new CompiledClassPropertiesProvider(classLoader));
+      myRootContainer = XmlReader.createRoot(module, rootContainer, classLoader, null);
     }
-    Document doc = FileDocumentManager.getInstance().getDocument(formFile);
-    final ClassLoader classLoader = LoaderFactory.getInstance(getProject()).getLoader(formFile);
-    final LwRootContainer rootContainer = Utils.getRootContainer(doc.getText(), new CompiledClassPropertiesProvider(classLoader));
-    myRootContainer = XmlReader.createRoot(module, rootContainer, classLoader, null);
     if (myRootContainer.getComponentCount() > 0) {
       getDelegee().setLayout(new BorderLayout());
       JComponent nestedFormDelegee = myRootContainer.getComponent(0).getDelegee();
@@ -77,6 +91,17 @@ public class RadNestedForm extends RadComponent {
     }
   }
 
+  /**
+   * @return path of the nested form relative to its source root, as written in the <code>form-file</code> attribute
+   */
+  public String getFormFileName() {
+    return myFormFileName;
+  }
+
+  public RadRootContainer getNestedRootContainer() {
+    return myRootContainer;
+  }
+
   public void write(XmlWriter writer) {
     writer.startElement(UIFormXmlConstants.ELEMENT_NESTED_FORM);
     try {
@@ -19,7 +19,6 @@ import com.intellij.java.language.psi.codeStyle.JavaCodeStyleManager;
 import com.intellij.java.language.psi.codeStyle.VariableKind;
 import com.intellij.uiDesigner.compiler.Utils;
 import com.intellij.uiDesigner.core.UIFormXmlConstants;
-import com.intellij.uiDesigner.impl.FormEditingUtil;
 import com.intellij.uiDesigner.impl.ModuleProvider;
 import com.intellij.uiDesigner.impl.XmlWriter;
 import com.intellij.uiDesigner.lw.IButtonGroup;
@@ -38,8 +37,10 @@ import javax.swing.*;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * @author Anton Katilin
@@ -51,6 +52,16 @@ public final class RadRootContainer extends RadContainer implements IRootContain
   private Locale myStringDescriptorLocale;
   private final List<RadButtonGroup> myButtonGroups = new ArrayList<RadButtonGroup>();
   private final List<LwInspectionSuppression> myInspectionSuppressions = new ArrayList<LwInspectionSuppression>();
+  /**
+   * Components of the form by id and by binding, kept up to date as components are attached, detached and bound.
+   * Ids never change, and are unique within the form, while several components may temporarily have the same binding.
+   */
+  private final Map<String, RadComponent> myComponentsById = new HashMap<String, RadComponent>();
+  private final Map<String, List<RadComponent>> myComponentsByBinding = new HashMap<String, List<RadComponent>>();
+  /**
+   * Button group of each grouped component id, rebuilt whenever the membership of groups changes
+   */
+  private final Map<String, RadButtonGroup> myGroupsByComponentId = new HashMap<String, RadButtonGroup>();
 
   public RadRootContainer(final ModuleProvider module, final String id) {
     super(module, JPanel.class, id);
@@ -159,6 +170,27 @@ public final class RadRootContainer extends RadContainer implements IRootContain
         }
       }
     }
+    updateGroupsByComponentId();
+  }
+
+  /**
+   * @return the group the component with the given id belongs to, or null if it is not grouped
+   */
+  @Nullable
+  public RadButtonGroup findGroupForComponent(@Nonnull final String componentId) {
+    return myGroupsByComponentId.get(componentId);
+  }
+
+  private void updateGroupsByComponentId() {
+    myGroupsByComponentId.clear();
+    for (RadButtonGroup group : myButtonGroups) {
+      for (String id : group.getComponentIds()) {
+        // as with a scan of the groups, the first group wins if the form lists a component in several ones
+        if (!myGroupsByComponentId.containsKey(id)) {
+          myGroupsByComponentId.put(id, group);
+        }
+      }
+    }
   }
 
   public RadButtonGroup[] getButtonGroups() {
@@ -193,6 +225,7 @@ public final class RadRootContainer extends RadContainer implements IRootContain
 
   public void deleteGroup(RadButtonGroup group) {
     myButtonGroups.remove(group);
+    updateGroupsByComponentId();
   }
 
   public void setButtonGroups(final IButtonGroup[] buttonGroups) {
@@ -205,12 +238,13 @@ public final class RadRootContainer extends RadContainer implements IRootContain
         group.addComponentIds(componentIds);
       }
     }
+    updateGroupsByComponentId();
   }
 
   public List<RadComponent> getGroupContents(final RadButtonGroup group) {
     ArrayList<RadComponent> result = new ArrayList<RadComponent>();
     for(String id: group.getComponentIds()) {
-      RadComponent component = (RadComponent) FormEditingUtil.findComponent(this, id);
+      RadComponent component = findComponent(id);
       if (component != null) {
         result.add(component);
       }
@@ -219,12 +253,8 @@ public final class RadRootContainer extends RadContainer implements IRootContain
   }
 
   public String getButtonGroupName(IComponent component) {
-    for(RadButtonGroup group: myButtonGroups) {
-      if (group.contains((RadComponent)component)) {
-        return group.getName();
-      }
-    }
-    return null;
+    final RadButtonGroup group = findGroupForComponent(component.getId());
+    return group != null ? group.getName() : null;
   }
 
   public String[] getButtonGroupComponentIds(String groupName) {
@@ -236,6 +266,79 @@ public final class RadRootContainer extends RadContainer implements IRootContain
     throw new IllegalArgumentException("Cannot find group " + groupName);
   }
 
+  /**
+   * @return the root itself or the component of the form with the given id
+   */
+  @Nullable
+  public RadComponent findComponent(@Nonnull final String id) {
+    return id.equals(getId()) ? this : myComponentsById.get(id);
+  }
+
+  /**
+   * @return the root itself or a component of the form with the given binding, other than <code>exceptComponent</code>
+   */
+  @Nullable
+  public RadComponent findComponentWithBinding(@Nonnull final String binding, @Nullable final IComponent exceptComponent) {
+    if (this != exceptComponent && binding.equals(getBinding())) {
+      return this;
+    }
+    final List<RadComponent> components = myComponentsByBinding.get(binding);
+    if (components != null) {
+      for (RadComponent component : components) {
+        if (component != exceptComponent) {
+          return component;
+        }
+      }
+    }
+    return null;
+  }
+
+  void componentAttached(@Nonnull final RadComponent component) {
+    myComponentsById.put(component.getId(), component);
+    addBinding(component, component.getBinding());
+    if (component instanceof RadContainer) {
+      for (RadComponent child : ((RadContainer)component).getComponents()) {
+        componentAttached(child);
+      }
+    }
+  }
+
+  void componentDetached(@Nonnull final RadComponent component) {
+    // a component with the same id may already replace the detached one
+    myComponentsById.remove(component.getId(), component);
+    removeBinding(component, component.getBinding());
+    if (component instanceof RadContainer) {
+      for (RadComponent child : ((RadContainer)component).getComponents()) {
+        componentDetached(child);
+      }
+    }
+  }
+
+  void bindingChanged(@Nonnull final RadComponent component, @Nullable final String oldBinding, @Nullable final String newBinding) {
+    if (component != this) {
+      removeBinding(component, oldBinding);
+      addBinding(component, newBinding);
+    }
+  }
+
+  private void addBinding(@Nonnull final RadComponent component, @Nullable final String binding) {
+    if (binding != null) {
+      List<RadComponent> components = myComponentsByBinding.get(binding);
+      if (components == null) {
+        components = new ArrayList<RadComponent>(1);
+        myComponentsByBinding.put(binding, components);
+      }
+      components.add(component);
+    }
+  }
+
+  private void removeBinding(@Nonnull final RadComponent component, @Nullable final String binding) {
+    final List<RadComponent> components = binding != null ? myComponentsByBinding.get(binding) : null;
+    if (components != null && components.remove(component) && components.isEmpty()) {
+      myComponentsByBinding.remove(binding);
+    }
+  }
+
   public Locale getStringDescriptorLocale() {
     return myStringDescriptorLocale;
   }
@@ -83,7 +83,7 @@ public class SnapshotContext {
         AbstractButton btn = elements.nextElement();
         RadComponent c = myImportMap.get(btn);
         if (c != null) {
-          radButtonGroup.add(c);
+          myRootContainer.setGroupForComponent(c, radButtonGroup);
         }
       }
     }
@@ -0,0 +1,135 @@
+package com.intellij.uiDesigner.binding;
+
+import com.intellij.uiDesigner.impl.binding.FormTagScanner;
+import jakarta.annotation.Nonnull;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public abstract class FormTagScannerTest extends TestCase {
+  private static final String FORM_START = "<form xmlns=\"http://www.intellij.com/uidesigner/form/\" version=\"1\" bind-to-class=\"Test\">";
+
+  public void testTagsAndAttributes() {
+    final String text = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                        FORM_START + "\n" +
+                        "  <grid id=\"27dc6\" binding='panel' layout-manager=\"GridLayoutManager\">\n" +
+                        "    <children>\n" +
+                        "      <nested-form id=\"a1\" form-file=\"p/Nested.form\"/>\n" +
+                        "    </children>\n" +
+                        "  </grid>\n" +
+                        "</form>";
+    final List<FormTagScanner.Tag> tags = scan(text);
+    assertEquals("[form, grid, children, nested-form]", names(tags).toString());
+    assertNull(tags.get(0).getParent());
+    assertSame(tags.get(0), tags.get(1).getParent());
+    assertSame(tags.get(2), tags.get(3).getParent());
+
+    final FormTagScanner.Tag grid = tags.get(1);
+    assertEquals(text.indexOf("<grid"), grid.getStartOffset());
+    assertEquals("panel", grid.getAttributeValue("binding"));
+    assertNull(grid.getAttributeValue("class"));
+    final FormTagScanner.Attribute layout = grid.getAttribute("layout-manager");
+    assertEquals("GridLayoutManager", text.substring(layout.getValueStart(), layout.getValueEnd()));
+    assertEquals("p/Nested.form", tags.get(3).getAttributeValue("form-file"));
+  }
+
+  public void testEntitiesInAttributeValues() {
+    final String text = FORM_START + "<component id=\"a\" class=\"A&amp;B &lt;&#65;&#x42;&gt; &unknown; &\"/></form>";
+    final FormTagScanner.Attribute attribute = scan(text).get(1).getAttribute("class");
+    assertEquals("A&B <AB> &unknown; &", attribute.getValue());
+    assertEquals("A&amp;B &lt;&#65;&#x42;&gt; &unknown; &", text.substring(attribute.getValueStart(), attribute.getValueEnd()));
+  }
+
+  public void testCommentsCDataAndProcessingInstructionsAreSkipped() {
+    final String text = "<?xml version=\"1.0\"?>\n" +
+                        "<!DOCTYPE form>\n" +
+                        FORM_START +
+                        "<!-- <component id=\"c\" class=\"Commented\"/> -->" +
+                        "<![CDATA[<component id=\"d\" class=\"Data\"/>]]>" +
+                        "<?pi <component id=\"e\"/> ?>" +
+                        "<component id=\"f\" class=\"Real\"/>" +
+                        "</form>";
+    final List<FormTagScanner.Tag> tags = scan(text);
+    assertEquals("[form, component]", names(tags).toString());
+    assertEquals("Real", tags.get(1).getAttributeValue("class"));
+  }
+
+  public void testPrefixedRootTag() {
+    final String text = "<f:form xmlns:f=\"http://www.intellij.com/uidesigner/form/\"><f:grid id=\"a\"/></f:form>";
+    assertEquals("[form, grid]", names(scan(text)).toString());
+  }
+
+  public void testNotAForm() {
+    assertNull(scanOrNull("<form version=\"1\"><grid id=\"a\"/></form>"));
+    assertNull(scanOrNull("<form xmlns=\"http://example.com/\"><grid id=\"a\"/></form>"));
+    assertNull(scanOrNull("<html xmlns=\"http://www.intellij.com/uidesigner/form/\"/>"));
+    assertNull(scanOrNull("no tags at all"));
+    assertNull(scanOrNull(""));
+  }
+
+  public void testMalformedTags() {
+    assertNull(scanOrNull(FORM_START + "<component id=\"a\" class=/></form>"));
+    assertNull(scanOrNull(FORM_START + "<component id=a/></form>"));
+    assertNull(scanOrNull(FORM_START + "<component id=\"a/></form>"));
+    assertNull(scanOrNull(FORM_START + "<component id"));
+    assertNull(scanOrNull(FORM_START + "< id=\"a\"/></form>"));
+  }
+
+  public void testTruncatedTextReportsCompleteTags() {
+    final List<FormTagScanner.Tag> tags = scanOrNull(FORM_START + "<grid id=\"a\"><children>");
+    assertNotNull(tags);
+    assertEquals("[form, grid, children]", names(tags).toString());
+  }
+
+  public void testEndOffsets() {
+    final String text = FORM_START + "<grid id=\"a\"><children><component id=\"b\"/></children></grid></form>";
+    final List<String> elements = new ArrayList<String>();
+    assertTrue(FormTagScanner.scan(text, new FormTagScanner.Visitor() {
+      @Override
+      public boolean visitTag(@Nonnull FormTagScanner.Tag tag) {
+        return true;
+      }
+
+      @Override
+      public void visitEndTag(@Nonnull FormTagScanner.Tag tag, int endOffset) {
+        elements.add(text.substring(tag.getStartOffset(), endOffset));
+      }
+    }));
+    assertEquals(4, elements.size());
+    assertEquals("<component id=\"b\"/>", elements.get(0));
+    assertEquals("<children><component id=\"b\"/></children>", elements.get(1));
+    assertEquals("<grid id=\"a\"><children><component id=\"b\"/></children></grid>", elements.get(2));
+    assertEquals(text, elements.get(3));
+  }
+
+  public void testVisitorStopsScanning() {
+    final List<String> names = new ArrayList<String>();
+    assertFalse(FormTagScanner.scan(FORM_START + "<grid id=\"a\"/><grid id=\"b\"/></form>", tag -> {
+      names.add(tag.getName());
+      return !"grid".equals(tag.getName());
+    }));
+    assertEquals("[form, grid]", names.toString());
+  }
+
+  @Nonnull
+  private static List<FormTagScanner.Tag> scan(@Nonnull String text) {
+    final List<FormTagScanner.Tag> tags = scanOrNull(text);
+    assertNotNull(tags);
+    return tags;
+  }
+
+  private static List<FormTagScanner.Tag> scanOrNull(@Nonnull String text) {
+    final List<FormTagScanner.Tag> tags = new ArrayList<FormTagScanner.Tag>();
+    return FormTagScanner.scan(text, tag -> tags.add(tag)) ? tags : null;
+  }
+
+  @Nonnull
+  private static List<String> names(@Nonnull List<FormTagScanner.Tag> tags) {
+    final List<String> names = new ArrayList<String>();
+    for (FormTagScanner.Tag tag : tags) {
+      names.add(tag.getName());
+    }
+    return names;
+  }
+}
@@ -0,0 +1,139 @@
+package com.intellij.uiDesigner.impl.designSurface;
+
+import com.intellij.uiDesigner.impl.XmlWriter;
+import jakarta.annotation.Nonnull;
+import junit.framework.TestCase;
+
+public abstract class ComponentTextRangesTest extends TestCase {
+  private static final String LABEL =
+    "<component id=\"label\" class=\"javax.swing.JLabel\" binding=\"myLabel\">\n" +
+    "        <constraints>\n" +
+    "          <tabbedpane title=\"First\"/>\n" +
+    "        </constraints>\n" +
+    "        <properties>\n" +
+    "          <text value=\"Label\"/>\n" +
+    "        </properties>\n" +
+    "      </component>";
+  private static final String FORM =
+    "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+    "<form xmlns=\"http://www.intellij.com/uidesigner/form/\" version=\"1\" bind-to-class=\"BindingTest\">\n" +
+    "  <tabbedpane id=\"root\" class=\"javax.swing.JTabbedPane\" binding=\"myRootComponent\">\n" +
+    "    <constraints>\n" +
+    "      <xy x=\"20\" y=\"20\" width=\"200\" height=\"200\"/>\n" +
+    "    </constraints>\n" +
+    "    <properties/>\n" +
+    "    <border type=\"none\"/>\n" +
+    "    <children>\n" +
+    "      <!-- <component id=\"commented\" class=\"javax.swing.JLabel\"/> -->\n" +
+    "      " + LABEL + "\n" +
+    "      <grid id=\"panel\" layout-manager=\"GridLayoutManager\" row-count=\"1\" column-count=\"1\">\n" +
+    "        <constraints>\n" +
+    "          <tabbedpane title=\"Second\"/>\n" +
+    "        </constraints>\n" +
+    "        <properties/>\n" +
+    "        <border type=\"none\"/>\n" +
+    "        <children>\n" +
+    "          <component id=\"button\" class=\"javax.swing.JButton\">\n" +
+    "            <constraints>\n" +
+    "              <grid row=\"0\" column=\"0\" row-span=\"1\" col-span=\"1\"/>\n" +
+    "            </constraints>\n" +
+    "            <properties>\n" +
+    "              <text value=\"&lt;Button&gt;\"/>\n" +
+    "            </properties>\n" +
+    "          </component>\n" +
+    "          <component id=\"empty\" class=\"javax.swing.JSeparator\"/>\n" +
+    "        </children>\n" +
+    "      </grid>\n" +
+    "    </children>\n" +
+    "  </tabbedpane>\n" +
+    "</form>\n";
+
+  public void testRanges() {
+    final ComponentTextRanges ranges = ComponentTextRanges.create(FORM);
+    assertNotNull(ranges);
+    assertEquals(LABEL, getText(ranges, "label"));
+    assertEquals(3, ranges.get("label").getDepth());
+    assertEquals("<component id=\"empty\" class=\"javax.swing.JSeparator\"/>", getText(ranges, "empty"));
+    assertEquals(5, ranges.get("empty").getDepth());
+    assertTrue(getText(ranges, "panel").startsWith("<grid id=\"panel\""));
+    assertTrue(getText(ranges, "panel").endsWith("JSeparator\"/>\n        </children>\n      </grid>"));
+    assertTrue(getText(ranges, "button").endsWith("</properties>\n          </component>"));
+    assertTrue(getText(ranges, "root").startsWith("<tabbedpane id=\"root\""));
+    assertTrue(getText(ranges, "root").endsWith("</tabbedpane>"));
+    assertEquals(1, ranges.get("root").getDepth());
+  }
+
+  public void testOnlyComponentTagsHaveRanges() {
+    final ComponentTextRanges ranges = ComponentTextRanges.create(FORM);
+    assertNotNull(ranges);
+    assertNull(ranges.get("commented"));
+    assertNull(ranges.get("First"));
+    assertNull(ranges.get(""));
+  }
+
+  public void testUnusableTexts() {
+    assertNull(ComponentTextRanges.create(FORM.replace("id=\"button\"", "id=\"label\"")));
+    assertNull(ComponentTextRanges.create(FORM.replace("<text value=\"Label\"/>", "<text value=\"Label/>")));
+    assertNull(ComponentTextRanges.create(FORM.substring(0, FORM.indexOf("</grid>"))));
+    assertNull(ComponentTextRanges.create("<form version=\"1\"><grid id=\"a\"/></form>"));
+  }
+
+  public void testReplacedElement() {
+    final ComponentTextRanges ranges = ComponentTextRanges.create(FORM);
+    assertNotNull(ranges);
+    final ComponentTextRanges.Range label = ranges.get("label");
+    final String newLabel = LABEL.replace("\"Label\"", "\"Longer label\"");
+    final String newText = FORM.substring(0, label.getStartOffset()) + newLabel + FORM.substring(label.getEndOffset());
+    ranges.replaced(label, newLabel.length());
+
+    final ComponentTextRanges expected = ComponentTextRanges.create(newText);
+    assertNotNull(expected);
+    for (String id : new String[]{"root", "label", "panel", "button", "empty"}) {
+      assertEquals(id, expected.get(id).getStartOffset(), ranges.get(id).getStartOffset());
+      assertEquals(id, expected.get(id).getEndOffset(), ranges.get(id).getEndOffset());
+    }
+  }
+
+  public void testReplacedContainerForgetsItsChildren() {
+    final ComponentTextRanges ranges = ComponentTextRanges.create(FORM);
+    assertNotNull(ranges);
+    final int rootEnd = ranges.get("root").getEndOffset();
+    final ComponentTextRanges.Range panel = ranges.get("panel");
+    final int delta = 10 - (panel.getEndOffset() - panel.getStartOffset());
+    ranges.replaced(panel, 10);
+    assertNull(ranges.get("button"));
+    assertNull(ranges.get("empty"));
+    assertSame(panel, ranges.get("panel"));
+    assertEquals(panel.getStartOffset() + 10, panel.getEndOffset());
+    assertEquals(rootEnd + delta, ranges.get("root").getEndOffset());
+  }
+
+  public void testFragmentWriterMatchesRange() {
+    final ComponentTextRanges ranges = ComponentTextRanges.create(FORM);
+    assertNotNull(ranges);
+    final XmlWriter writer = XmlWriter.createFragmentWriter(ranges.get("label").getDepth());
+    writer.startElement("component");
+    writer.addAttribute("id", "label");
+    writer.addAttribute("class", "javax.swing.JLabel");
+    writer.addAttribute("binding", "myLabel");
+    writer.startElement("constraints");
+    writer.startElement("tabbedpane");
+    writer.addAttribute("title", "First");
+    writer.endElement();
+    writer.endElement();
+    writer.startElement("properties");
+    writer.startElement("text");
+    writer.addAttribute("value", "Label");
+    writer.endElement();
+    writer.endElement();
+    writer.endElement();
+    assertEquals("      " + LABEL + "\n", writer.getText());
+  }
+
+  @Nonnull
+  private static String getText(@Nonnull ComponentTextRanges ranges, @Nonnull String id) {
+    final ComponentTextRanges.Range range = ranges.get(id);
+    assertNotNull(range);
+    return FORM.substring(range.getStartOffset(), range.getEndOffset());
+  }
+}
@@ -0,0 +1,190 @@
+package com.intellij.uiDesigner.impl.designSurface;
+
+import com.intellij.uiDesigner.impl.binding.FormTagScanner;
+import jakarta.annotation.Nonnull;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+public abstract class FormComponentDiffTest extends TestCase {
+  private static final String FORM =
+    "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+    "<form xmlns=\"http://www.intellij.com/uidesigner/form/\" version=\"1\" bind-to-class=\"BindingTest\">\n" +
+    "  <tabbedpane id=\"root\" class=\"javax.swing.JTabbedPane\" binding=\"myRootComponent\">\n" +
+    "    <constraints>\n" +
+    "      <xy x=\"20\" y=\"20\" width=\"200\" height=\"200\"/>\n" +
+    "    </constraints>\n" +
+    "    <properties/>\n" +
+    "    <border type=\"none\"/>\n" +
+    "    <children>\n" +
+    "      <component id=\"label\" class=\"javax.swing.JLabel\" binding=\"myLabel\">\n" +
+    "        <constraints>\n" +
+    "          <tabbedpane title=\"First\"/>\n" +
+    "        </constraints>\n" +
+    "        <properties>\n" +
+    "          <text value=\"Label\"/>\n" +
+    "        </properties>\n" +
+    "      </component>\n" +
+    "      <grid id=\"panel\" layout-manager=\"GridLayoutManager\" row-count=\"1\" column-count=\"1\">\n" +
+    "        <constraints>\n" +
+    "          <tabbedpane title=\"Second\"/>\n" +
+    "        </constraints>\n" +
+    "        <properties/>\n" +
+    "        <border type=\"none\"/>\n" +
+    "        <children>\n" +
+    "          <component id=\"button\" class=\"javax.swing.JButton\">\n" +
+    "            <constraints>\n" +
+    "              <grid row=\"0\" column=\"0\" row-span=\"1\" col-span=\"1\"/>\n" +
+    "            </constraints>\n" +
+    "            <properties>\n" +
+    "              <text value=\"Button\"/>\n" +
+    "            </properties>\n" +
+    "          </component>\n" +
+    "        </children>\n" +
+    "      </grid>\n" +
+    "    </children>\n" +
+    "  </tabbedpane>\n" +
+    "  <buttonGroups>\n" +
+    "    <group name=\"group\">\n" +
+    "      <member id=\"button\"/>\n" +
+    "    </group>\n" +
+    "  </buttonGroups>\n" +
+    "</form>\n";
+
+  public void testSameText() {
+    assertChanged(FORM);
+  }
+
+  public void testWhitespaceAndCommentsAreIgnored() {
+    assertChanged(FORM.replace("<properties/>", "<properties />").replace("    <children>\n", "    <!-- <component id=\"x\"/> --><children>\n\n"));
+  }
+
+  public void testPropertyChange() {
+    assertChanged(FORM.replace("\"Button\"", "\"OK\""), "button");
+  }
+
+  public void testAttributeOrderMatters() {
+    assertChanged(FORM.replace("<grid row=\"0\" column=\"0\"", "<grid column=\"0\" row=\"0\""), "button");
+  }
+
+  public void testNestedTagNamedLikeComponent() {
+    // <tabbedpane> of the constraints belongs to the label, not to the tabbed pane
+    assertChanged(FORM.replace("title=\"First\"", "title=\"Third\""), "label");
+  }
+
+  public void testNestedTagStructure() {
+    assertChanged(FORM.replace("<text value=\"Label\"/>\n        </properties>", "</properties><text value=\"Label\"/>"), "label");
+  }
+
+  public void testBindingChange() {
+    assertChanged(FORM.replace("binding=\"myLabel\"", "binding=\"myTitle\""), "label");
+    assertChanged(FORM.replace(" binding=\"myLabel\"", ""), "label");
+  }
+
+  public void testIdChange() {
+    // the parent changes too, as the ids of its children differ
+    assertChanged(FORM.replace("id=\"label\"", "id=\"caption\""), "root", "caption");
+  }
+
+  public void testChildrenReordered() {
+    final int labelStart = FORM.indexOf("      <component id=\"label\"");
+    final int labelEnd = FORM.indexOf("      <grid id=\"panel\"");
+    final int panelEnd = FORM.indexOf("    </children>\n  </tabbedpane>");
+    final String reordered = FORM.substring(0, labelStart) + FORM.substring(labelEnd, panelEnd) + FORM.substring(labelStart, labelEnd) +
+                             FORM.substring(panelEnd);
+    assertChanged(reordered, "root");
+  }
+
+  public void testComponentMovedToOtherParent() {
+    final int buttonStart = FORM.indexOf("          <component id=\"button\"");
+    final int buttonEnd = FORM.indexOf("        </children>\n      </grid>");
+    final String button = FORM.substring(buttonStart, buttonEnd);
+    final String moved = FORM.substring(0, buttonStart) + FORM.substring(buttonEnd).replace("    </children>\n  </tabbedpane>", button + "    </children>\n  </tabbedpane>");
+    assertChanged(moved, "root", "panel", "button");
+  }
+
+  public void testComponentAdded() {
+    final String added = FORM.replace("        </children>\n      </grid>",
+                                      "          <vspacer id=\"spacer\">\n" +
+                                      "            <constraints>\n" +
+                                      "              <grid row=\"1\" column=\"0\" row-span=\"1\" col-span=\"1\"/>\n" +
+                                      "            </constraints>\n" +
+                                      "          </vspacer>\n" +
+                                      "        </children>\n      </grid>");
+    assertChanged(added, "panel", "spacer");
+  }
+
+  public void testComponentRemoved() {
+    final int buttonStart = FORM.indexOf("          <component id=\"button\"");
+    final int buttonEnd = FORM.indexOf("        </children>\n      </grid>");
+    assertChanged(FORM.substring(0, buttonStart) + FORM.substring(buttonEnd), "panel");
+  }
+
+  public void testRootChangesCannotBeCompared() {
+    assertNull(FormComponentDiff.findChangedComponents(FORM, FORM.replace("bind-to-class=\"BindingTest\"", "bind-to-class=\"Other\"")));
+    assertNull(FormComponentDiff.findChangedComponents(FORM, FORM.replace("<member id=\"button\"/>", "")));
+  }
+
+  public void testMalformedTextCannotBeCompared() {
+    assertNull(FormComponentDiff.findChangedComponents(FORM, FORM.replace("<text value=\"Button\"/>", "<text value=\"Button/>")));
+    assertNull(FormComponentDiff.findChangedComponents(FORM.replace("<text value=\"Button\"/>", "<text value=Button/>"), FORM));
+    assertNull(FormComponentDiff.findChangedComponents(FORM, "<form version=\"1\"/>"));
+  }
+
+  public void testDuplicateIdsCannotBeCompared() {
+    assertNull(FormComponentDiff.findChangedComponents(FORM, FORM.replace("<component id=\"button\"", "<component id=\"label\"")));
+    assertNull(FormComponentDiff.findChangedComponents(FORM, FORM.replace("<component id=\"button\"", "<component id=\"\"")));
+  }
+
+  public void testRemoveUnchangedSibling() {
+    final String text = FORM.replace("\"Button\"", "\"OK\"");
+    final String pruned = FormComponentDiff.removeUnchangedComponents(text, Collections.singleton("button"));
+    final int labelStart = text.indexOf("<component id=\"label\"");
+    final int labelEnd = text.indexOf("</component>", labelStart) + "</component>".length();
+    assertEquals(text.substring(0, labelStart) + text.substring(labelEnd), pruned);
+    assertEquals("[root, panel, button]", componentIds(pruned).toString());
+  }
+
+  public void testDescendantsOfChangedComponentsAreKept() {
+    final String text = FORM.replace("title=\"Second\"", "title=\"Panel\"");
+    final String pruned = FormComponentDiff.removeUnchangedComponents(text, FormComponentDiff.findChangedComponents(FORM, text));
+    assertEquals("[root, panel, button]", componentIds(pruned).toString());
+    assertTrue(pruned.contains("<buttonGroups>"));
+  }
+
+  public void testRemoveEverythingUnchanged() {
+    final String pruned = FormComponentDiff.removeUnchangedComponents(FORM, Collections.<String>emptySet());
+    assertEquals("[]", componentIds(pruned).toString());
+    assertTrue(pruned.contains("<buttonGroups>"));
+  }
+
+  public void testRemoveFromMalformedText() {
+    assertNull(FormComponentDiff.removeUnchangedComponents("<form version=\"1\"/>", Collections.singleton("button")));
+  }
+
+  private static void assertChanged(@Nonnull String newText, @Nonnull String... expectedIds) {
+    final Set<String> changed = FormComponentDiff.findChangedComponents(FORM, newText);
+    assertNotNull(changed);
+    final List<String> actual = new ArrayList<String>(changed);
+    Collections.sort(actual);
+    final List<String> expected = new ArrayList<String>();
+    Collections.addAll(expected, expectedIds);
+    Collections.sort(expected);
+    assertEquals(expected, actual);
+  }
+
+  @Nonnull
+  private static List<String> componentIds(@Nonnull String text) {
+    final List<String> ids = new ArrayList<String>();
+    assertTrue(FormTagScanner.scan(text, tag -> {
+      if (FormComponentDiff.isComponentTag(tag)) {
+        ids.add(tag.getAttributeValue("id"));
+      }
+      return true;
+    }));
+    return ids;
+  }
+}
@@ -0,0 +1,167 @@
+package com.intellij.uiDesigner.impl.make;
+
+import consulo.language.file.light.LightVirtualFile;
+import consulo.virtualFileSystem.VirtualFile;
+import jakarta.annotation.Nonnull;
+import junit.framework.TestCase;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public abstract class FormContentValidityStateTest extends TestCase {
+  private TestFile myForm;
+  private TestFile myNestedForm;
+  private File myBoundFile;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myForm = new TestFile("Form.form", "<form/>");
+    myNestedForm = new TestFile("Nested.form", "<form/>");
+    myBoundFile = File.createTempFile("Form", ".class");
+    Files.write(myBoundFile.toPath(), new byte[]{1, 2, 3});
+    myBoundFile.setLastModified(1000000L);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    myBoundFile.delete();
+    super.tearDown();
+  }
+
+  public void testUntouchedFilesAreNotRead() throws IOException {
+    final FormContentValidityState saved = reload(create());
+    myForm.myReads = 0;
+    myNestedForm.myReads = 0;
+
+    assertTrue(create().equalsTo(saved));
+    assertEquals(0, myForm.myReads);
+    assertEquals(0, myNestedForm.myReads);
+  }
+
+  public void testTouchedFilesWithSameContentAreUnchanged() throws IOException {
+    final FormContentValidityState saved = reload(create());
+    myForm.myTimeStamp++;
+    myNestedForm.myTimeStamp++;
+    myBoundFile.setLastModified(2000000L);
+    myForm.myReads = 0;
+
+    assertTrue(create().equalsTo(saved));
+    assertEquals(1, myForm.myReads);
+  }
+
+  public void testChangedForm() throws IOException {
+    final FormContentValidityState saved = reload(create());
+    myForm.setText("<form version=\"1\"/>");
+    assertFalse(create().equalsTo(saved));
+  }
+
+  public void testChangedNestedForm() throws IOException {
+    final FormContentValidityState saved = reload(create());
+    myNestedForm.setText("<form version=\"1\"/>");
+    assertFalse(create().equalsTo(saved));
+  }
+
+  public void testChangedNestedFormList() throws IOException {
+    final FormContentValidityState saved = reload(create());
+    assertFalse(FormContentValidityState.create(myForm, myBoundFile, Collections.<VirtualFile>emptyList()).equalsTo(saved));
+  }
+
+  public void testChangedBoundFile() throws IOException {
+    final FormContentValidityState saved = reload(create());
+    Files.write(myBoundFile.toPath(), new byte[]{1, 2, 4});
+    myBoundFile.setLastModified(2000000L);
+    assertFalse(create().equalsTo(saved));
+  }
+
+  public void testMissingBoundFileIsAlwaysChanged() throws IOException {
+    myBoundFile.delete();
+    final FormContentValidityState saved = reload(create());
+    assertFalse(create().equalsTo(saved));
+  }
+
+  public void testUnknownNestedFormsAreAlwaysChanged() throws IOException {
+    final FormContentValidityState saved = reload(FormContentValidityState.create(myForm, myBoundFile, null));
+    assertFalse(FormContentValidityState.create(myForm, myBoundFile, null).equalsTo(saved));
+  }
+
+  public void testPatchedBoundFile() throws IOException {
+    final FormContentValidityState beforePatch = create();
+    Files.write(myBoundFile.toPath(), new byte[]{1, 2, 3, 4});
+    myBoundFile.setLastModified(2000000L);
+    final FormContentValidityState saved = reload(beforePatch.withBoundFile(myBoundFile));
+
+    assertTrue(create().equalsTo(saved));
+  }
+
+  public void testFileModifiedBeforeHashingIsNotTrusted() throws IOException {
+    final FormContentValidityState state = create();
+    Files.write(myBoundFile.toPath(), new byte[]{4, 5, 6});
+    myBoundFile.setLastModified(2000000L);
+    final FormContentValidityState saved = reload(state);
+
+    // the old content comes back with the old timestamp, which must not be taken for the hashed content
+    Files.write(myBoundFile.toPath(), new byte[]{1, 2, 3});
+    myBoundFile.setLastModified(1000000L);
+    assertFalse(create().equalsTo(saved));
+  }
+
+  public void testUnsupportedVersion() {
+    try {
+      FormContentValidityState.load(new DataInputStream(new ByteArrayInputStream(new byte[]{0, 0, 0})));
+      fail();
+    }
+    catch (IOException ignored) {
+    }
+  }
+
+  @Nonnull
+  private FormContentValidityState create() {
+    final List<VirtualFile> nestedForms = Arrays.<VirtualFile>asList(myNestedForm);
+    return FormContentValidityState.create(myForm, myBoundFile, nestedForms);
+  }
+
+  @Nonnull
+  private static FormContentValidityState reload(@Nonnull FormContentValidityState state) throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    state.save(new DataOutputStream(bytes));
+    return FormContentValidityState.load(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+  }
+
+  private static class TestFile extends LightVirtualFile {
+    private byte[] myContent;
+    private long myTimeStamp = 1;
+    private int myReads;
+
+    private TestFile(@Nonnull String name, @Nonnull String text) {
+      super(name, text);
+      myContent = text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void setText(@Nonnull String text) {
+      myContent = text.getBytes(StandardCharsets.UTF_8);
+      myTimeStamp++;
+    }
+
+    @Override
+    public long getTimeStamp() {
+      return myTimeStamp;
+    }
+
+    @Override
+    public long getLength() {
+      return myContent.length;
+    }
+
+    @Nonnull
+    @Override
+    public byte[] contentsToByteArray() {
+      myReads++;
+      return myContent.clone();
+    }
+  }
+}